@@ -0,0 +1,122 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Busca em comentários: LIKE '%termo%' (modo like, o original) contra full-text (modo fts:
+ * detalhe_tsv + GIN parcial + websearch_to_tsquery). Cada busca é o que o ComentarioSearchService
+ * faz para o ADMIN: a página de 20 e a contagem (exata no LIKE, limitada a 1000 no FTS). Usa a
+ * tabela própria bench_comentario, recriada a cada execução; rode contra um banco de teste.
+ *
+ * <pre>
+ * java loadtest/ComentarioSearchBench.java jdbc:postgresql://localhost:5432/helpdesk usuario senha 1000000
+ * </pre>
+ *
+ * Precisa do driver do PostgreSQL no classpath (ver README).
+ */
+public class ComentarioSearchBench {
+
+    private static final int AQUECIMENTO = 3;
+    private static final int RODADAS = 10;
+
+    // termo frequente (no vocabulário), raro (~0,1% dos comentários), ausente
+    private static final String[] TERMOS = {"impressora", "firmware", "xilofone"};
+
+    private static final String LIKE_PAGINA = """
+        select id, quando, detalhe from bench_comentario
+        where tipo = 'COMENTARIO' and lower(detalhe) like lower('%' || ? || '%')
+        order by quando desc limit 20
+        """;
+    private static final String LIKE_TOTAL = """
+        select count(*) from bench_comentario
+        where tipo = 'COMENTARIO' and lower(detalhe) like lower('%' || ? || '%')
+        """;
+    private static final String FTS_PAGINA = """
+        select id, quando, detalhe from bench_comentario e, websearch_to_tsquery('portuguese', ?) tq
+        where e.tipo = 'COMENTARIO' and e.detalhe_tsv @@ tq
+        order by ts_rank_cd(e.detalhe_tsv, tq) desc, e.quando desc limit 20
+        """;
+    private static final String FTS_TOTAL = """
+        select count(*) from (
+            select 1 from bench_comentario
+            where tipo = 'COMENTARIO' and detalhe_tsv @@ websearch_to_tsquery('portuguese', ?)
+            limit 1000
+        ) x
+        """;
+
+    public static void main(String[] args) throws Exception {
+        String url = args[0], user = args[1], senha = args[2];
+        int linhas = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        try (Connection c = DriverManager.getConnection(url, user, senha)) {
+            popular(c, linhas);
+            System.out.printf("%-11s %-5s %10s %10s %8s%n", "termo", "modo", "mediana ms", "p90 ms", "total");
+            for (String termo : TERMOS) {
+                medir(c, termo, "like", LIKE_PAGINA, LIKE_TOTAL);
+                medir(c, termo, "fts", FTS_PAGINA, FTS_TOTAL);
+            }
+        }
+    }
+
+    private static void popular(Connection c, int linhas) throws Exception {
+        long t0 = System.nanoTime();
+        try (Statement st = c.createStatement()) {
+            st.execute("drop table if exists bench_comentario");
+            // mesma forma do tb_chamado_evento: tsvector gerado + GIN só para comentários
+            st.execute("""
+                create table bench_comentario (
+                    id uuid primary key,
+                    tipo varchar(30) not null,
+                    quando timestamptz not null,
+                    detalhe text,
+                    detalhe_tsv tsvector generated always as (to_tsvector('portuguese', coalesce(detalhe, ''))) stored)
+                """);
+            // 8 a 19 palavras sorteadas de um vocabulário de suporte; 1 em 5 linhas não é comentário
+            st.execute("""
+                insert into bench_comentario (id, tipo, quando, detalhe)
+                select gen_random_uuid(),
+                       case when mod(g, 5) = 0 then 'STATUS_ALTERADO' else 'COMENTARIO' end,
+                       now() - make_interval(secs => g),
+                       (select string_agg(v.w[s.k], ' ')
+                          from (select 1 + floor(random() * array_length(v.w, 1))::int as k
+                                  from generate_series(1, 8 + mod(g, 12))) s)
+                       || case when random() < 0.001 then ' firmware desatualizado' else '' end
+                from generate_series(1, %d) g,
+                     (select array['impressora', 'rede', 'lenta', 'senha', 'acesso', 'sistema', 'erro',
+                                   'tela', 'usuário', 'não', 'funciona', 'após', 'atualização', 'reinício',
+                                   'cabo', 'monitor', 'teclado', 'e-mail', 'servidor', 'backup', 'arquivo',
+                                   'pasta', 'compartilhada', 'permissão', 'chamado', 'urgente', 'setor',
+                                   'financeiro', 'vpn', 'conexão', 'caiu', 'voltou', 'travando', 'lentidão',
+                                   'instalação', 'licença', 'office', 'navegador', 'certificado', 'expirado'] w) v
+                """.formatted(linhas));
+            st.execute("create index on bench_comentario using gin (detalhe_tsv) where tipo = 'COMENTARIO'");
+            st.execute("analyze bench_comentario");
+        }
+        System.out.printf("%d linhas geradas e indexadas em %.1f s%n%n", linhas, (System.nanoTime() - t0) / 1e9);
+    }
+
+    private static void medir(Connection c, String termo, String modo, String pagina, String total) throws Exception {
+        double[] ms = new double[RODADAS];
+        long n = 0;
+        try (PreparedStatement p = c.prepareStatement(pagina); PreparedStatement t = c.prepareStatement(total)) {
+            for (int i = -AQUECIMENTO; i < RODADAS; i++) {
+                long t0 = System.nanoTime();
+                p.setString(1, termo);
+                try (ResultSet rs = p.executeQuery()) {
+                    while (rs.next()) rs.getString(3);
+                }
+                t.setString(1, termo);
+                try (ResultSet rs = t.executeQuery()) {
+                    rs.next();
+                    n = rs.getLong(1);
+                }
+                if (i >= 0) ms[i] = (System.nanoTime() - t0) / 1e6;
+            }
+        }
+        Arrays.sort(ms);
+        System.out.printf("%-11s %-5s %10.1f %10.1f %8d%n", termo, modo, ms[RODADAS / 2], ms[RODADAS * 9 / 10], n);
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Abre N assinaturas de /api/notifications/stream contra um nó e mantém todas abertas, para
+ * medir quantas ele segura (ver README.md nesta pasta). Sem dependências: {@code java SseLoad.java}.
+ *
+ * <pre>
+ * java SseLoad.java --url http://localhost:7013 --token $TOKEN --conexoes 5000 --por-segundo 500 --segurar 60
+ * </pre>
+ *
+ * Conta como conectada a assinatura que recebeu o evento CONNECTED; ao final lê do próprio nó
+ * helpdesk.sse.clientes, jvm.threads.live e jvm.memory.used (o token precisa ser de ADMIN para
+ * o /actuator/metrics).
+ *
+ * <p>Leitores lentos: {@code --parados N} abre N assinaturas que nunca leem o socket, e
+ * {@code --criar N} cria N chamados (descrição de 3900 caracteres) depois de abrir tudo. Uma
+ * conexão extra, a sonda, mede o atraso entre o {@code createdAt} e a chegada de cada
+ * CHAMADO_CRIADO.</p>
+ */
+public class SseLoad {
+
+    private static final Pattern VALOR = Pattern.compile("\"value\":([0-9.E+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        String url = opcao(args, "--url", "http://localhost:7013");
+        String token = opcao(args, "--token", System.getenv("TOKEN"));
+        int conexoes = Integer.parseInt(opcao(args, "--conexoes", "1000"));
+        int porSegundo = Integer.parseInt(opcao(args, "--por-segundo", "500"));
+        int segurar = Integer.parseInt(opcao(args, "--segurar", "30"));
+        int parados = Integer.parseInt(opcao(args, "--parados", "0"));
+        int criar = Integer.parseInt(opcao(args, "--criar", "0"));
+        if (token == null) throw new IllegalArgumentException("informe --token ou TOKEN");
+
+        var http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        var req = HttpRequest.newBuilder(URI.create(url + "/api/notifications/stream"))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream")
+                .build();
+
+        var conectadas = new AtomicInteger();
+        var abertas = new AtomicInteger();
+        var falhas = new AtomicInteger();
+        var eventos = new AtomicLong();
+        var leitores = Executors.newVirtualThreadPerTaskExecutor();
+
+        List<Double> atrasos = Collections.synchronizedList(new ArrayList<>());
+        if (criar > 0) leitores.submit(() -> sonda(http, req, atrasos));
+        List<Socket> calados = new ArrayList<>();
+        for (int i = 0; i < parados; i++) calados.add(parado(url, token));
+
+        long t0 = System.nanoTime();
+        long proximoRelatorio = t0;
+        for (int i = 0; i < conexoes; i++) {
+            leitores.submit(() -> {
+                try {
+                    HttpResponse<InputStream> r = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+                    if (r.statusCode() != 200) {
+                        if (falhas.incrementAndGet() <= 3) System.err.println("falha: HTTP " + r.statusCode());
+                        r.body().close();
+                        return;
+                    }
+                    abertas.incrementAndGet();
+                    try (var in = new BufferedReader(new InputStreamReader(r.body(), StandardCharsets.UTF_8))) {
+                        String linha;
+                        while ((linha = in.readLine()) != null) {
+                            if (!linha.startsWith("event:")) continue;
+                            if (linha.equals("event:CONNECTED")) conectadas.incrementAndGet();
+                            else eventos.incrementAndGet();
+                        }
+                    } finally {
+                        abertas.decrementAndGet();
+                    }
+                } catch (Exception e) {
+                    if (falhas.incrementAndGet() <= 3) System.err.println("falha: " + e);
+                }
+            });
+            // ritmo de abertura
+            long alvo = t0 + (long) ((i + 1) * 1e9 / porSegundo);
+            long falta = alvo - System.nanoTime();
+            if (falta > 0) Thread.sleep(falta / 1_000_000, (int) (falta % 1_000_000));
+            if (System.nanoTime() >= proximoRelatorio) {
+                relatorio(t0, conectadas, abertas, falhas, eventos);
+                proximoRelatorio = System.nanoTime() + 1_000_000_000L;
+            }
+        }
+
+        if (criar > 0) criarChamados(http, url, token, criar);
+
+        for (int s = 0; s < segurar; s++) {
+            Thread.sleep(1000);
+            relatorio(t0, conectadas, abertas, falhas, eventos);
+        }
+
+        System.out.printf("%nservidor: helpdesk.sse.clientes=%s jvm.threads.live=%s jvm.memory.used=%s MiB%n",
+                metrica(http, url, token, "helpdesk.sse.clientes", 1),
+                metrica(http, url, token, "jvm.threads.live", 1),
+                metrica(http, url, token, "jvm.memory.used", 1024 * 1024));
+        if (criar > 0) {
+            List<Double> a;
+            synchronized (atrasos) {
+                a = new ArrayList<>(atrasos);
+            }
+            Collections.sort(a);
+            System.out.printf(a.isEmpty() ? "sonda: 0 de %d eventos%n" : "sonda: %d de %d eventos, atraso p50=%.2fs p99=%.2fs max=%.2fs%n",
+                    a.size(), criar, p(a, 0.5), p(a, 0.99), p(a, 1));
+        }
+        System.exit(0);
+    }
+
+    // assinatura que nunca lê: o buffer de recepção pequeno enche logo e o servidor fica preso na escrita
+    private static Socket parado(String url, String token) throws Exception {
+        URI u = URI.create(url);
+        var s = new Socket();
+        s.setReceiveBufferSize(4096);
+        s.connect(new InetSocketAddress(u.getHost(), u.getPort()));
+        s.getOutputStream().write(("GET /api/notifications/stream HTTP/1.1\r\nHost: " + u.getHost()
+                + "\r\nAuthorization: Bearer " + token + "\r\nAccept: text/event-stream\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        return s;
+    }
+
+    private static final Pattern CRIADO_EM = Pattern.compile("\"createdAt\":\"([^\"]+)\"");
+
+    private static void sonda(HttpClient http, HttpRequest req, List<Double> atrasos) {
+        try {
+            HttpResponse<InputStream> r = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+            try (var in = new BufferedReader(new InputStreamReader(r.body(), StandardCharsets.UTF_8))) {
+                String linha;
+                boolean criado = false;
+                while ((linha = in.readLine()) != null) {
+                    if (linha.startsWith("event:")) criado = linha.equals("event:CHAMADO_CRIADO");
+                    if (!criado || !linha.startsWith("data:")) continue;
+                    Matcher m = CRIADO_EM.matcher(linha);
+                    if (m.find()) {
+                        Instant quando = Instant.parse(m.group(1));
+                        atrasos.add(Duration.between(quando, Instant.now()).toNanos() / 1e9);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("sonda: " + e);
+        }
+    }
+
+    // 16 requisições simultâneas, como um pico de abertura de chamados
+    private static void criarChamados(HttpClient http, String url, String token, int n) throws Exception {
+        String corpo = "{\"titulo\":\"carga\",\"descricao\":\"" + "x".repeat(3900) + "\",\"prioridade\":\"MEDIA\"}";
+        var req = HttpRequest.newBuilder(URI.create(url + "/api/chamados"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+        var vagas = new Semaphore(16);
+        List<Double> tempos = Collections.synchronizedList(new ArrayList<>());
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) {
+                vagas.acquire();
+                pool.submit(() -> {
+                    long t = System.nanoTime();
+                    try {
+                        int status = http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 300) System.err.println("criar chamado: HTTP " + status);
+                    } catch (Exception e) {
+                        System.err.println("criar chamado: " + e);
+                    } finally {
+                        tempos.add((System.nanoTime() - t) / 1e9);
+                        vagas.release();
+                    }
+                });
+            }
+        }
+        List<Double> a = new ArrayList<>(tempos);
+        Collections.sort(a);
+        System.out.printf("%d chamados criados: POST p50=%.2fs p99=%.2fs%n", n, p(a, 0.5), p(a, 0.99));
+    }
+
+    private static double p(List<Double> ordenados, double q) {
+        if (ordenados.isEmpty()) return 0;
+        return ordenados.get(Math.min(ordenados.size() - 1, (int) (ordenados.size() * q)));
+    }
+
+    private static void relatorio(long t0, AtomicInteger conectadas, AtomicInteger abertas,
+                                  AtomicInteger falhas, AtomicLong eventos) {
+        System.out.printf("%5.1fs conectadas=%d abertas=%d falhas=%d eventos=%d%n",
+                (System.nanoTime() - t0) / 1e9, conectadas.get(), abertas.get(), falhas.get(), eventos.get());
+    }
+
+    private static String metrica(HttpClient http, String url, String token, String nome, double divisor) {
+        try {
+            var r = http.send(HttpRequest.newBuilder(URI.create(url + "/actuator/metrics/" + nome))
+                    .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+            Matcher m = VALOR.matcher(r.body());
+            return m.find() ? String.format("%.0f", Double.parseDouble(m.group(1)) / divisor) : "?";
+        } catch (Exception e) {
+            return "?";
+        }
+    }
+
+    private static String opcao(String[] args, String nome, String padrao) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(nome)) return args[i + 1];
+        }
+        return padrao;
+    }
+}
@@ -0,0 +1,70 @@
+import com.cloud.yagodev.helpdesk.entities.UuidV7Generator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert em tabela com PK uuid: v4 (UUID.randomUUID, o que o GenerationType.UUID usa) contra
+ * v7 (UuidV7Generator). Mede linhas/s e o tamanho final do índice da PK. Usa tabelas próprias
+ * (bench_uuid_v4/v7), recriadas a cada execução; rode contra um banco de teste.
+ *
+ * <pre>
+ * mvn -q -DskipTests compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:$(cat target/cp.txt) loadtest/UuidInsertBench.java \
+ *      jdbc:postgresql://localhost:5432/helpdesk usuario senha 1000000
+ * </pre>
+ */
+public class UuidInsertBench {
+
+    private static final int LOTE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        String url = args[0], user = args[1], senha = args[2];
+        int linhas = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        try (Connection c = DriverManager.getConnection(url, user, senha)) {
+            // ordem alternada para o cache do banco não favorecer sempre o segundo
+            rodar(c, "v4", UUID::randomUUID, linhas);
+            rodar(c, "v7", UuidV7Generator::gerar, linhas);
+            rodar(c, "v4", UUID::randomUUID, linhas);
+            rodar(c, "v7", UuidV7Generator::gerar, linhas);
+        }
+    }
+
+    private static void rodar(Connection c, String nome, Supplier<UUID> ids, int linhas) throws Exception {
+        String tabela = "bench_uuid_" + nome;
+        try (Statement st = c.createStatement()) {
+            st.execute("drop table if exists " + tabela);
+            // mesma forma do tb_chamado_evento: PK uuid + carga pequena
+            st.execute("create table " + tabela + " (id uuid primary key, quando timestamptz not null default now(), detalhe text)");
+        }
+        c.setAutoCommit(false);
+        long t0 = System.nanoTime();
+        try (var ps = c.prepareStatement("insert into " + tabela + " (id, detalhe) values (?, ?)")) {
+            for (int i = 1; i <= linhas; i++) {
+                ps.setObject(1, ids.get());
+                ps.setString(2, "evento " + i);
+                ps.addBatch();
+                if (i % LOTE == 0) {
+                    ps.executeBatch();
+                    c.commit();
+                }
+            }
+            ps.executeBatch();
+            c.commit();
+        }
+        double s = (System.nanoTime() - t0) / 1e9;
+        c.setAutoCommit(true);
+
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("select pg_relation_size('" + tabela + "_pkey'), pg_relation_size('" + tabela + "')")) {
+            rs.next();
+            System.out.printf("%s: %d linhas em %.1f s (%.0f linhas/s), índice PK %d MiB, tabela %d MiB%n",
+                    nome, linhas, s, linhas / s, rs.getLong(1) >> 20, rs.getLong(2) >> 20);
+        }
+    }
+}
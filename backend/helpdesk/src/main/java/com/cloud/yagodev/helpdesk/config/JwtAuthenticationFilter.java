@@ -1,8 +1,7 @@
 package com.cloud.yagodev.helpdesk.config;
 
-import com.cloud.yagodev.helpdesk.entities.Usuario;
-import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
 import com.cloud.yagodev.helpdesk.services.JwtService;
+import com.cloud.yagodev.helpdesk.services.UsuarioPrincipalCache;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,11 +21,11 @@ import java.util.UUID;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwt;
-    private final UsuarioRepository repo;
+    private final UsuarioPrincipalCache principals;
 
-    public JwtAuthenticationFilter(JwtService jwt, UsuarioRepository repo) {
+    public JwtAuthenticationFilter(JwtService jwt, UsuarioPrincipalCache principals) {
         this.jwt = jwt;
-        this.repo = repo;
+        this.principals = principals;
     }
 
     @Override
@@ -56,13 +55,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 var jws = jwt.parse(token);
                 if (jwt.isAccess(jws)) {
                     UUID userId = jwt.subjectAsUuid(jws);
-                    Usuario u = repo.findById(userId).orElse(null);
-                    if (u != null && u.isAtivo()) {
-                        var authorities = u.getRoles().stream()
+                    var u = principals.get(userId); // cache (sem query no caminho quente)
+                    if (u != null && u.ativo()) {
+                        var authorities = u.principal().roles().stream()
                                 .map(r -> new SimpleGrantedAuthority("ROLE_" + r.name()))
                                 .toList();
+                        // principal tipado (id/nome/roles) → controllers não re-consultam por e-mail
                         var principal = new UsernamePasswordAuthenticationToken(
-                                u.getEmail(), null, authorities);
+                                u.principal(), null, authorities);
                         SecurityContextHolder.getContext().setAuthentication(principal);
                     }
                 }
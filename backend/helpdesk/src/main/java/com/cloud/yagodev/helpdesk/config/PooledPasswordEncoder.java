@@ -0,0 +1,85 @@
+package com.cloud.yagodev.helpdesk.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Verificação de senha num pool próprio e limitado: uma leva de logins ocupa só as threads do
+ * pool, e não todos os núcleos (nem as threads do Tomcat) que o resto da API usa. Fila cheia, ou
+ * espera maior que {@code esperaMs}, vira {@link TaskRejectedException}; o AuthController
+ * responde 503 com Retry-After.
+ *
+ * <p>Só o {@code matches} vai para o pool. O {@code encode} (cadastro, troca de senha, rehash)
+ * é raro e continua na thread de quem chama.</p>
+ */
+final class PooledPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+    private final long esperaMs;
+    private final Counter rejeitadas;
+
+    // o pool não é bean: um Executor no contexto tomaria o lugar do applicationTaskExecutor do Boot
+    PooledPasswordEncoder(PasswordEncoder delegate, int threads, int fila, long esperaMs, MeterRegistry meters) {
+        this.delegate = delegate;
+        this.esperaMs = esperaMs;
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.setQueueCapacity(fila);
+        pool.setThreadNamePrefix("bcrypt-");
+        pool.setDaemon(true);
+        pool.initialize();
+        this.rejeitadas = meters.counter("helpdesk.auth.bcrypt.rejeitadas");
+        Gauge.builder("helpdesk.auth.bcrypt.fila", pool, ThreadPoolTaskExecutor::getQueueSize).register(meters);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> f;
+        try {
+            f = pool.submit(() -> delegate.matches(rawPassword, encodedPassword));
+        } catch (TaskRejectedException e) { // fila cheia
+            rejeitadas.increment();
+            throw e;
+        }
+        try {
+            return f.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(false); // se ainda estiver na fila, não roda mais
+            rejeitadas.increment();
+            throw new TaskRejectedException("Verificação de senha excedeu " + esperaMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            f.cancel(false);
+            throw new TaskRejectedException("Verificação de senha interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
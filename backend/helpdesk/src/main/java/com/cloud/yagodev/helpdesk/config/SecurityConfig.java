@@ -1,6 +1,9 @@
 // src/main/java/com/cloud/yagodev/helpdesk/config/SecurityConfig.java
 package com.cloud.yagodev.helpdesk.config;
 
+import com.cloud.yagodev.helpdesk.services.UsuarioDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,7 +16,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -36,11 +38,13 @@ public class SecurityConfig {
 
     // Provider que usa seu UserDetailsService + PasswordEncoder
     @Bean
-    DaoAuthenticationProvider daoAuthenticationProvider(UserDetailsService userDetailsService,
+    DaoAuthenticationProvider daoAuthenticationProvider(UsuarioDetailsService userDetailsService,
                                                         PasswordEncoder encoder) {
         DaoAuthenticationProvider p = new DaoAuthenticationProvider();
         p.setUserDetailsService(userDetailsService);
         p.setPasswordEncoder(encoder);
+        // hash com custo menor que o configurado é refeito no login que acertou a senha
+        p.setUserDetailsPasswordService(userDetailsService);
         return p;
     }
 
@@ -57,12 +61,15 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                // redespacho assíncrono (fim de conexão SSE) de requisição que já passou pela autorização
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/auth/first-access/**").permitAll()
                 .requestMatchers("/auth/login", "/auth/refresh").permitAll()
                 .requestMatchers("/auth/login", "/auth/refresh", "/auth/logout").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/usuarios").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/usuarios").permitAll()
                 .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // ⬇️ SSE precisa estar autenticado (token via query ?access_token=...):
                 .requestMatchers(HttpMethod.GET, "/api/notifications/stream").authenticated()
                 .anyRequest().authenticated()
@@ -79,8 +86,8 @@ public class SecurityConfig {
         var cfg = new CorsConfiguration();
         cfg.setAllowedOrigins(Arrays.stream(originsCsv.split(",")).map(String::trim).toList());
         cfg.setAllowedMethods(List.of("GET","POST","PUT","DELETE","PATCH","OPTIONS"));
-        cfg.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","X-Requested-With","Cache-Control"));
-        cfg.setExposedHeaders(List.of("Authorization"));
+        cfg.setAllowedHeaders(List.of("Authorization","Content-Type","Accept","X-Requested-With","Cache-Control","If-None-Match"));
+        cfg.setExposedHeaders(List.of("Authorization","ETag","Retry-After"));
         cfg.setAllowCredentials(true); // necessário para cookie HttpOnly do refresh
         cfg.setMaxAge(3600L);
 
@@ -89,8 +96,14 @@ public class SecurityConfig {
         return source;
     }
 
+    // BCrypt com custo configurável; a verificação roda no pool limitado do PooledPasswordEncoder
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meters,
+                                           @Value("${app.security.bcrypt.strength:10}") int strength,
+                                           @Value("${app.security.bcrypt.threads:0}") int threads,
+                                           @Value("${app.security.bcrypt.fila:64}") int fila,
+                                           @Value("${app.security.bcrypt.espera-ms:3000}") long esperaMs) {
+        int n = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new PooledPasswordEncoder(new BCryptPasswordEncoder(strength), n, Math.max(0, fila), esperaMs, meters);
     }
 }
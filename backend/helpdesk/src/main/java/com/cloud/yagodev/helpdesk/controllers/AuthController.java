@@ -1,17 +1,22 @@
 package com.cloud.yagodev.helpdesk.controllers;
 
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
 import com.cloud.yagodev.helpdesk.entities.Usuario;
 import com.cloud.yagodev.helpdesk.enums.Role;
 import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
 import com.cloud.yagodev.helpdesk.services.JwtService;
+import com.cloud.yagodev.helpdesk.services.UsuarioDetailsService.UsuarioDetails;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Duration;
@@ -24,9 +29,11 @@ public class AuthController {
     private final AuthenticationManager authManager;
     private final UsuarioRepository repo;
     private final JwtService jwt;
+    private final long retryAfter;
 
-    public AuthController(AuthenticationManager am, UsuarioRepository r, JwtService j) {
-        this.authManager = am; this.repo = r; this.jwt = j;
+    public AuthController(AuthenticationManager am, UsuarioRepository r, JwtService j,
+                          @Value("${app.security.login.retry-after-segundos:2}") long retryAfter) {
+        this.authManager = am; this.repo = r; this.jwt = j; this.retryAfter = retryAfter;
     }
 
     // DTOs
@@ -36,12 +43,21 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody @Valid LoginRequest req, HttpServletResponse res) {
-        var auth = authManager.authenticate(new UsernamePasswordAuthenticationToken(req.email(), req.senha()));
-        Usuario u = repo.findByEmailIgnoreCase(req.email()).orElseThrow();
-        var roles = u.getRoles().stream().map(Enum::name).toList();
+        Authentication auth;
+        try {
+            auth = authManager.authenticate(new UsernamePasswordAuthenticationToken(req.email(), req.senha()));
+        } catch (TaskRejectedException e) {
+            // pool de verificação de senha lotado: o cliente tenta de novo em instantes
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                    .build();
+        }
+        // o UserDetails carregado na autenticação já traz o usuário: sem segunda consulta
+        UsuarioPrincipal u = ((UsuarioDetails) auth.getPrincipal()).principal();
+        var roles = u.roles().stream().map(Enum::name).toList();
 
-        String access = jwt.generateAccess(u.getId(), u.getEmail(), roles);
-        String refresh = jwt.generateRefresh(u.getId());
+        String access = jwt.generateAccess(u.id(), u.email(), roles);
+        String refresh = jwt.generateRefresh(u.id());
 
         // refresh em cookie HttpOnly
         ResponseCookie cookie = ResponseCookie.from("refresh_token", refresh)
@@ -54,7 +70,7 @@ public class AuthController {
         res.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
 
         var body = new AuthResponse("Bearer", access, 900L,
-                new UserPayload(u.getId(), u.getNome(), u.getEmail(), u.getRoles()));
+                new UserPayload(u.id(), u.nome(), u.email(), u.roles()));
         return ResponseEntity.ok(body);
     }
 
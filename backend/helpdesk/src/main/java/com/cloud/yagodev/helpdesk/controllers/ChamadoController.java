@@ -5,85 +5,86 @@ import com.cloud.yagodev.helpdesk.entities.Chamado;
 import com.cloud.yagodev.helpdesk.entities.ChamadoEvento;
 import com.cloud.yagodev.helpdesk.entities.Usuario;
 import com.cloud.yagodev.helpdesk.enums.StatusChamado;
-import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
 import com.cloud.yagodev.helpdesk.services.ChamadoService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/chamados")
 public class ChamadoController {
 
     private final ChamadoService chamadoService;
-    private final UsuarioRepository usuarioRepo;
 
-    public ChamadoController(ChamadoService chamadoService, UsuarioRepository usuarioRepo) {
+    public ChamadoController(ChamadoService chamadoService) {
         this.chamadoService = chamadoService;
-        this.usuarioRepo = usuarioRepo;
     }
 
     // --- criar chamado: solicitante vem do token ---
     @PostMapping
     public ResponseEntity<ChamadoResponse> abrir(@RequestBody @Valid ChamadoCreateRequest req,
-                                                 Authentication auth) {
-        UUID solicitanteId = currentUserId(auth);
-        Chamado c = chamadoService.abrirChamado(solicitanteId, req);
-        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(c));
+                                                 @AuthenticationPrincipal UsuarioPrincipal me) {
+        Chamado c = chamadoService.abrirChamado(me, req);
+        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(c, me));
     }
 
     // --- alterar status: autor vem do token ---
     @PostMapping("/{id}/status")
     public ResponseEntity<ChamadoResponse> alterarStatus(@PathVariable("id") UUID chamadoId,
                                                          @RequestBody @Valid StatusChangeRequest req,
-                                                         Authentication auth) {
-        UUID autorId = currentUserId(auth);
-        Chamado c = chamadoService.alterarStatus(autorId, chamadoId, req);
-        return ResponseEntity.ok(toResponse(c));
+                                                         @AuthenticationPrincipal UsuarioPrincipal me) {
+        Chamado c = chamadoService.alterarStatus(me, chamadoId, req);
+        return ResponseEntity.ok(toResponse(c, me));
     }
 
     // --- técnico assume: técnico vem do token; restrito a TECNICO/ADMIN ---
     @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
     @PostMapping("/{id}/assumir")
     public ResponseEntity<ChamadoResponse> assumir(@PathVariable("id") UUID chamadoId,
-                                                   Authentication auth) {
-        UUID tecnicoId = currentUserId(auth);
-        Chamado c = chamadoService.assumir(tecnicoId, chamadoId);
-        return ResponseEntity.ok(toResponse(c));
+                                                   @AuthenticationPrincipal UsuarioPrincipal me) {
+        Chamado c = chamadoService.assumir(me, chamadoId);
+        return ResponseEntity.ok(toResponse(c, me));
     }
 
     // --- comentar: autor vem do token ---
     @PostMapping("/{id}/comentarios")
     public ResponseEntity<ChamadoResponse> comentar(@PathVariable("id") UUID chamadoId,
                                                     @RequestBody @Valid ComentarioRequest req,
-                                                    Authentication auth) {
-        UUID autorId = currentUserId(auth);
-        Chamado c = chamadoService.comentar(autorId, chamadoId, req);
-        return ResponseEntity.ok(toResponse(c));
+                                                    @AuthenticationPrincipal UsuarioPrincipal me) {
+        Chamado c = chamadoService.comentar(me, chamadoId, req);
+        return ResponseEntity.ok(toResponse(c, me));
     }
 
     // --- listagens: sem query param; usa usuário logado ---
+    // If-None-Match com o ETag do escopo (versão em memória) responde 304 sem consultar o banco
     @GetMapping("/meus")
-    public ResponseEntity<List<ChamadoResponse>> meus(Authentication auth) {
-        UUID solicitanteId = currentUserId(auth);
-        return ResponseEntity.ok(chamadoService.listarMeusChamados(solicitanteId)
-                .stream().map(this::toResponse).toList());
+    public ResponseEntity<List<ChamadoResponse>> meus(@AuthenticationPrincipal UsuarioPrincipal me,
+                                                      WebRequest request) {
+        return condicional(request, chamadoService.etagMeusChamados(me.id()),
+                () -> chamadoService.listarMeusChamados(me.id()).stream().map(this::toResponse).toList());
     }
 
     @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
     @GetMapping("/tecnico")
-    public ResponseEntity<List<ChamadoResponse>> porTecnico(Authentication auth) {
-        UUID tecnicoId = currentUserId(auth);
-        return ResponseEntity.ok(chamadoService.listarPorTecnico(tecnicoId)
-                .stream().map(this::toResponse).toList());
+    public ResponseEntity<List<ChamadoResponse>> porTecnico(@AuthenticationPrincipal UsuarioPrincipal me,
+                                                            WebRequest request) {
+        return condicional(request, chamadoService.etagPorTecnico(me.id()),
+                () -> chamadoService.listarPorTecnico(me.id()).stream().map(this::toResponse).toList());
     }
 
     @GetMapping
@@ -96,17 +97,88 @@ public class ChamadoController {
     // listar somente EM_ABERTO (técnico precisa ver todos os abertos)
     @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
     @GetMapping("/abertos")
-    public ResponseEntity<List<ChamadoResponse>> abertos() {
-        return ResponseEntity.ok(
-                chamadoService.listarEmAberto().stream().map(this::toResponse).toList()
-        );
+    public ResponseEntity<List<ChamadoResponse>> abertos(WebRequest request) {
+        return condicional(request, chamadoService.etagEmAberto(),
+                () -> chamadoService.listarEmAberto().stream().map(this::toResponse).toList());
+    }
+
+    // --- listagens paginadas por cursor: ativadas por ?limit=N (&cursor=next da página anterior) ---
+    // ?view=summary devolve ChamadoSummary (sem descrição/eventos) numa única query
+    @GetMapping(value = "/meus", params = "limit")
+    public ResponseEntity<CursorPage<?>> meusPagina(@RequestParam int limit,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "full") String view,
+                                                    @AuthenticationPrincipal UsuarioPrincipal me) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoMeusChamados(me.id(), cursor, limit)
+                : chamadoService.paginaMeusChamados(me.id(), cursor, limit).map(this::toResponse));
+    }
+
+    @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
+    @GetMapping(value = "/tecnico", params = "limit")
+    public ResponseEntity<CursorPage<?>> porTecnicoPagina(@RequestParam int limit,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "full") String view,
+                                                          @AuthenticationPrincipal UsuarioPrincipal me) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoPorTecnico(me.id(), cursor, limit)
+                : chamadoService.paginaPorTecnico(me.id(), cursor, limit).map(this::toResponse));
+    }
+
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TECNICO')")
+    public ResponseEntity<CursorPage<?>> todosPagina(@RequestParam int limit,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "full") String view) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoTodos(cursor, limit)
+                : chamadoService.paginaTodos(cursor, limit).map(this::toResponse));
+    }
+
+    @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
+    @GetMapping(value = "/abertos", params = "limit")
+    public ResponseEntity<CursorPage<?>> abertosPagina(@RequestParam int limit,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "full") String view) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoPorStatus(StatusChamado.ABERTO, cursor, limit)
+                : chamadoService.paginaPorStatus(StatusChamado.ABERTO, cursor, limit).map(this::toResponse));
+    }
+
+    @GetMapping(value = "/sem-tecnico", params = "limit")
+    @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<?>> semTecnicoPagina(@RequestParam int limit,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "full") String view) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoSemTecnicoEmAberto(cursor, limit)
+                : chamadoService.paginaSemTecnicoEmAberto(cursor, limit).map(this::toResponse));
+    }
+
+    @GetMapping(value = "/status", params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<?>> porStatusPagina(@RequestParam StatusChamado status,
+                                                         @RequestParam int limit,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "full") String view) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoPorStatus(status, cursor, limit)
+                : chamadoService.paginaPorStatus(status, cursor, limit).map(this::toResponse));
+    }
+
+    // detalhe completo (com eventos) de um chamado
+    @GetMapping("/{id}")
+    public ResponseEntity<ChamadoResponse> detalhe(@PathVariable UUID id,
+                                                   @AuthenticationPrincipal UsuarioPrincipal me,
+                                                   WebRequest request) {
+        return condicional(request, chamadoService.etagDetalhe(me.id(), id),
+                () -> toResponse(chamadoService.detalhar(me, id)));
     }
 
     // excluir / cancelar chamado (só o solicitante dono ou ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> excluir(@PathVariable UUID id, Authentication auth) {
-        UUID autorId = currentUserId(auth);
-        chamadoService.excluirChamado(autorId, id); // implemente regra: só se for dono e, por ex., EM_ABERTO
+    public ResponseEntity<Void> excluir(@PathVariable UUID id, @AuthenticationPrincipal UsuarioPrincipal me) {
+        chamadoService.excluirChamado(me, id); // implemente regra: só se for dono e, por ex., EM_ABERTO
         return ResponseEntity.noContent().build();
     }
 
@@ -115,10 +187,9 @@ public class ChamadoController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ChamadoResponse> designar(@PathVariable("id") UUID chamadoId,
                                                     @RequestParam UUID tecnicoId,
-                                                    Authentication auth) {
-        UUID adminId = currentUserId(auth);
-        Chamado c = chamadoService.designarTecnico(adminId, chamadoId, tecnicoId);
-        return ResponseEntity.ok(toResponse(c));
+                                                    @AuthenticationPrincipal UsuarioPrincipal me) {
+        Chamado c = chamadoService.designarTecnico(me, chamadoId, tecnicoId);
+        return ResponseEntity.ok(toResponse(c, me));
     }
 
     // Cancelar (em vez de DELETE físico)
@@ -126,19 +197,20 @@ public class ChamadoController {
     @PostMapping("/{id}/cancelar")
     public ResponseEntity<ChamadoResponse> cancelar(@PathVariable UUID id,
                                                     @RequestBody(required = false) CancelamentoRequest req,
-                                                    Authentication auth) {
-        UUID autorId = currentUserId(auth);
-        Chamado c = chamadoService.cancelarChamado(autorId, id, req != null ? req.detalhe() : null);
-        return ResponseEntity.ok(toResponse(c));
+                                                    @AuthenticationPrincipal UsuarioPrincipal me) {
+        Chamado c = chamadoService.cancelarChamado(me, id, req != null ? req.detalhe() : null);
+        return ResponseEntity.ok(toResponse(c, me));
     }
 
     // Chamados sem técnico (abertos e sem responsável) – técnico e admin enxergam
+    // fila por prioridade (CRITICA primeiro) e idade; inteira, ou só as ?max= primeiras (teto 200)
     @GetMapping("/sem-tecnico")
     @PreAuthorize("hasRole('TECNICO') or hasRole('ADMIN')")
-    public ResponseEntity<List<ChamadoResponse>> semTecnico() {
-        return ResponseEntity.ok(
-                chamadoService.listarSemTecnicoEmAberto().stream().map(this::toResponse).toList()
-        );
+    public ResponseEntity<List<?>> semTecnico(@RequestParam(name = "max", required = false) Integer max,
+                                              @RequestParam(defaultValue = "full") String view) {
+        return ResponseEntity.ok(isSummary(view)
+                ? chamadoService.resumoFilaSemTecnico(max)
+                : chamadoService.listarSemTecnicoEmAberto(max).stream().map(this::toResponse).toList());
     }
 
     // Filtro por status para painéis do ADMIN
@@ -150,18 +222,21 @@ public class ChamadoController {
         );
     }
 
+    // lastUpdate é por instância; seq vem do banco e vale entre nós (use-o como since em /changes)
     @GetMapping("/ping")
     public Map<String, Long> ping() {
-        return Map.of("lastUpdate", chamadoService.getLastUpdate());
+        return Map.of("lastUpdate", chamadoService.getLastUpdate(), "seq", chamadoService.ultimaAlteracao());
     }
 
-    // ---- helpers ----
-    private UUID currentUserId(Authentication auth) {
-        // O JwtAuthenticationFilter setou principal como e-mail; buscamos o usuário
-        String email = auth.getName();
-        return usuarioRepo.findByEmailIgnoreCase(email)
-                .map(Usuario::getId)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
+    // só o que mudou desde ?since= (seq do /ping ou da resposta anterior), visível para quem pede;
+    // com temMais=true, repita com since=seq
+    @GetMapping("/changes")
+    public ResponseEntity<ChamadoChanges<?>> alteracoes(@RequestParam(defaultValue = "0") long since,
+                                                        @RequestParam(defaultValue = "100") int limit,
+                                                        @RequestParam(defaultValue = "full") String view,
+                                                        @AuthenticationPrincipal UsuarioPrincipal me) {
+        var changes = chamadoService.alteracoesDesde(me, since, limit);
+        return ResponseEntity.ok(isSummary(view) ? changes.map(this::toSummary) : changes.map(this::toResponse));
     }
 
     /** Retorna o “código curto” (6 últimos hex do UUID) de um chamado específico. */
@@ -178,6 +253,33 @@ public class ChamadoController {
         return ResponseEntity.ok(chamadoService.listarCodigosCurtos());
     }
 
+    /** Mesma lista paginada por id: {@code cursor} é o {@code next} da página anterior. */
+    @GetMapping(value = "/codigos", params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<ChamadoCodigoDto>> codigosCurtosPagina(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(chamadoService.paginaCodigos(cursor, limit));
+    }
+
+    /** Todos os {id, codigo} em NDJSON (uma linha por chamado), lidos e enviados em blocos. */
+    @GetMapping(value = "/codigos/stream", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamCodigosCurtos() {
+        StreamingResponseBody body = out -> chamadoService.exportarCodigos(1000, bloco -> {
+            try {
+                for (var c : bloco) {
+                    out.write(("{\"id\":\"" + c.id() + "\",\"codigo\":\"" + c.codigo() + "\"}\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     /** Busca por código curto. Pode retornar 0, 1 ou N chamados (se colidir). */
     @GetMapping("/por-codigo/{codigo}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('TECNICO')")
@@ -186,12 +288,46 @@ public class ChamadoController {
         return ResponseEntity.ok(list.stream().map(this::toResponse).toList());
     }
 
+    private static <T> ResponseEntity<T> condicional(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build(); // checkNotModified já pôs o ETag
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body.get());
+    }
+
+    private static boolean isSummary(String view) {
+        return "summary".equalsIgnoreCase(view);
+    }
+
+    private ChamadoSummary toSummary(Chamado c) {
+        return new ChamadoSummary(
+                c.getId(),
+                c.getTitulo(),
+                c.getStatus(),
+                c.getPrioridade(),
+                c.getSolicitante() != null ? c.getSolicitante().getId() : null,
+                c.getSolicitante() != null ? c.getSolicitante().getNome() : null,
+                c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getId() : null,
+                c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getNome() : null,
+                c.getCreatedAt(),
+                c.getClosedAt()
+        );
+    }
+
     private ChamadoResponse toResponse(Chamado c) {
+        return toResponse(c, null);
+    }
+
+    // após uma escrita: o nome de quem agiu vem do principal, sem carregar a referência dele
+    private ChamadoResponse toResponse(Chamado c, UsuarioPrincipal me) {
         var eventos = c.getEventos().stream().map(ev -> new ChamadoEventoResponse(
                 ev.getId(),
                 ev.getQuando(),
                 ev.getTipo(),
-                ev.getAutor() != null ? ev.getAutor().getNome() : null,
+                nome(ev.getAutor(), me),
                 safeDetalhe(ev),
                 ev.getStatusAnterior(),
                 ev.getStatusNovo()
@@ -204,15 +340,21 @@ public class ChamadoController {
                 c.getStatus(),
                 c.getPrioridade(),
                 c.getSolicitante() != null ? c.getSolicitante().getId() : null,
-                c.getSolicitante() != null ? c.getSolicitante().getNome() : null,
+                nome(c.getSolicitante(), me),
                 c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getId() : null,
-                c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getNome() : null,
+                nome(c.getTecnicoResponsavel(), me),
                 c.getCreatedAt(),
                 c.getClosedAt(),
                 eventos
         );
     }
 
+    // getId() de um proxy não o inicializa; getNome() sim
+    private static String nome(Usuario u, UsuarioPrincipal me) {
+        if (u == null) return null;
+        return me != null && u.getId().equals(me.id()) ? me.nome() : u.getNome();
+    }
+
     private String safeDetalhe(ChamadoEvento ev) {
         try {
             var m = ev.getClass().getMethod("getDetalhe");
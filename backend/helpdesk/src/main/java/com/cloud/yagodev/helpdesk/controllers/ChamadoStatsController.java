@@ -4,16 +4,22 @@ import com.cloud.yagodev.helpdesk.dtos.stats.CountByDay;
 import com.cloud.yagodev.helpdesk.dtos.stats.CountByMonth;
 import com.cloud.yagodev.helpdesk.dtos.stats.CountByStatus;
 import com.cloud.yagodev.helpdesk.dtos.stats.CountByTech;
+import com.cloud.yagodev.helpdesk.dtos.stats.DashboardStats;
 import com.cloud.yagodev.helpdesk.services.ChamadoStatsService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/chamados/stats")
@@ -39,35 +45,61 @@ public class ChamadoStatsController {
         return new RangeParams(f, t);
     }
 
+    // ETag antes do corpo: com If-None-Match válido responde 304 sem tocar no cache nem no banco
+    private <T> ResponseEntity<T> cached(WebRequest request, String endpoint, RangeParams r, Supplier<T> body) {
+        String etag = service.etag(endpoint, r.from(), r.to());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build(); // checkNotModified já pôs o ETag
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body.get());
+    }
+
     @GetMapping("/status")
-    public List<CountByStatus> byStatus(
+    public ResponseEntity<List<CountByStatus>> byStatus(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
         var r = normalize(from, to);
-        return service.totalsByStatus(r.from(), r.to());
+        return cached(request, "status", r, () -> service.totalsByStatus(r.from(), r.to()));
     }
 
     @GetMapping("/tecnicos-ativos")
-    public List<CountByTech> byTechActive(
+    public ResponseEntity<List<CountByTech>> byTechActive(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
         var r = normalize(from, to);
-        return service.totalsByTechActive(r.from(), r.to());
+        return cached(request, "tecnicos-ativos", r, () -> service.totalsByTechActive(r.from(), r.to()));
     }
 
     @GetMapping("/por-dia")
-    public List<CountByDay> perDay(
+    public ResponseEntity<List<CountByDay>> perDay(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
         var r = normalize(from, to);
-        return service.totalsPerDay(r.from(), r.to());
+        return cached(request, "por-dia", r, () -> service.totalsPerDay(r.from(), r.to()));
     }
 
     @GetMapping("/por-mes")
-    public List<CountByMonth> perMonth(
+    public ResponseEntity<List<CountByMonth>> perMonth(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        var r = normalize(from, to);
+        return cached(request, "por-mes", r, () -> service.totalsPerMonth(r.from(), r.to()));
+    }
+
+    // status + técnicos ativos + por dia + por mês numa chamada (uma consulta em vez de quatro)
+    @GetMapping("/dashboard")
+    public ResponseEntity<DashboardStats> dashboard(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
         var r = normalize(from, to);
-        return service.totalsPerMonth(r.from(), r.to());
+        return cached(request, "dashboard", r, () -> service.dashboard(r.from(), r.to()));
     }
 }
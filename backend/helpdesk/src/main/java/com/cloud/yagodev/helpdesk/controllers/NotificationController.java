@@ -1,38 +1,34 @@
 package com.cloud.yagodev.helpdesk.controllers;
 
 
-import com.cloud.yagodev.helpdesk.entities.Usuario;
-import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
 import com.cloud.yagodev.helpdesk.services.NotificationService;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.UUID;
-
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
     private final NotificationService notifications;
-    private final UsuarioRepository usuarios;
 
-    public NotificationController(NotificationService n, UsuarioRepository u) {
+    public NotificationController(NotificationService n) {
         this.notifications = n;
-        this.usuarios = u;
     }
 
+    // ?view=summary: notificações enxutas (id, status, prioridade, técnico e último evento)
+    // Last-Event-ID vem do EventSource ao reconectar sozinho; ?lastEventId= para quem recria o EventSource
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream(Authentication auth) {
-        UUID id = currentUserId(auth);
-        Usuario u = usuarios.findById(id).orElseThrow();
-        return notifications.subscribe(u);
-    }
-
-    private UUID currentUserId(Authentication auth) {
-        return usuarios.findByEmailIgnoreCase(auth.getName())
-                .map(Usuario::getId).orElseThrow();
+    public SseEmitter stream(@RequestParam(defaultValue = "full") String view,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(required = false) String lastEventId,
+                             @AuthenticationPrincipal UsuarioPrincipal me) {
+        String ultimo = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        return notifications.subscribe(me, "summary".equalsIgnoreCase(view), ultimo);
     }
 }
@@ -1,28 +1,35 @@
 package com.cloud.yagodev.helpdesk.controllers;
 
-import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
+import com.cloud.yagodev.helpdesk.dtos.UsuarioLookup;
+import com.cloud.yagodev.helpdesk.services.TecnicoDirectory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/usuarios")
 public class UsuarioLookupController {
-    private final UsuarioRepository repo;
-    public UsuarioLookupController(UsuarioRepository repo) { this.repo = repo; }
-
-    public record UsuarioLookup(UUID id, String nome, String email) {}
+    private final TecnicoDirectory tecnicos;
+    public UsuarioLookupController(TecnicoDirectory tecnicos) { this.tecnicos = tecnicos; }
 
+    // técnicos ativos; o cliente revalida com If-None-Match e recebe 304 se nada mudou
     @GetMapping("/tecnicos")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<UsuarioLookup> tecnicos() {
-        return repo.findAll().stream()
-                .filter(u -> u.getRoles().contains(com.cloud.yagodev.helpdesk.enums.Role.TECNICO))
-                .map(u -> new UsuarioLookup(u.getId(), u.getNome(), u.getEmail()))
-                .toList();
+    public ResponseEntity<List<UsuarioLookup>> tecnicos(WebRequest request) {
+        var snap = tecnicos.snapshot();
+        if (request.checkNotModified(snap.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build(); // checkNotModified já pôs o ETag
+        }
+        return ResponseEntity.ok()
+                .eTag(snap.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(snap.tecnicos());
     }
 }
@@ -0,0 +1,21 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Resposta de /changes: chamados criados/alterados e ids excluídos depois de {@code since},
+ * em ordem de seq. {@code seq} é o {@code since} da próxima chamada; com {@code temMais}
+ * ainda há alterações além desta página.
+ */
+public record ChamadoChanges<T>(
+        List<T> alterados,
+        List<UUID> excluidos,
+        long seq,
+        boolean temMais
+) {
+    public <R> ChamadoChanges<R> map(Function<? super T, ? extends R> fn) {
+        return new ChamadoChanges<>(alterados.stream().<R>map(fn).toList(), excluidos, seq, temMais);
+    }
+}
@@ -0,0 +1,33 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição na listagem de chamados ordenada por (createdAt desc, id desc).
+ * Vai para o cliente como string opaca (base64url de "createdAt|id").
+ */
+public record ChamadoCursor(Instant createdAt, UUID id) {
+
+    // antes de qualquer chamado: a primeira página usa a mesma query das demais
+    public static final ChamadoCursor INICIO = new ChamadoCursor(
+            Instant.parse("9999-12-31T23:59:59Z"), new UUID(-1L, -1L));
+
+    public static ChamadoCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return INICIO;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new ChamadoCursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
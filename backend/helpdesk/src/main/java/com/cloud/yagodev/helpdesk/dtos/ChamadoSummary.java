@@ -0,0 +1,22 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Linha de listagem: ChamadoResponse sem descrição e sem eventos (projeção JPQL direta). */
+public record ChamadoSummary(
+        UUID id,
+        String titulo,
+        StatusChamado status,
+        Prioridade prioridade,
+        UUID solicitanteId,
+        String solicitanteNome,
+        UUID tecnicoId,
+        String tecnicoNome,
+        Instant createdAt,
+        Instant closedAt
+) {
+}
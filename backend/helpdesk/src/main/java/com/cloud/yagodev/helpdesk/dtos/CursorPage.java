@@ -0,0 +1,14 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import java.util.List;
+import java.util.function.Function;
+
+/** Página de uma listagem por cursor (keyset). {@code next} é null na última página. */
+public record CursorPage<T>(
+        List<T> content,
+        String next
+) {
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> fn) {
+        return new CursorPage<>(content.stream().<R>map(fn).toList(), next);
+    }
+}
@@ -0,0 +1,40 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import com.cloud.yagodev.helpdesk.enums.NotificationType;
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Notificação enxuta (stream com ?view=summary): o que a lista precisa para se atualizar,
+ * sem descrição nem histórico; o detalhe, se preciso, vem de GET /api/chamados/{id}.
+ */
+public record NotificationSummaryDto(
+        NotificationType type,
+        String message,
+        UUID chamadoId,
+        Instant createdAt,
+        ChamadoResumo chamado // pode vir nulo
+) {
+    public record ChamadoResumo(
+            UUID id,
+            StatusChamado status,
+            Prioridade prioridade,
+            UUID tecnicoId,
+            String tecnicoNome,
+            ChamadoEventoResponse ultimoEvento
+    ) {}
+
+    public static NotificationSummaryDto of(NotificationDto dto) {
+        var c = dto.chamado();
+        ChamadoResumo resumo = null;
+        if (c != null) {
+            var eventos = c.eventos();
+            var ultimo = eventos == null || eventos.isEmpty() ? null : eventos.get(eventos.size() - 1);
+            resumo = new ChamadoResumo(c.id(), c.status(), c.prioridade(), c.tecnicoId(), c.tecnicoNome(), ultimo);
+        }
+        return new NotificationSummaryDto(dto.type(), dto.message(), dto.chamadoId(), dto.createdAt(), resumo);
+    }
+}
@@ -0,0 +1,10 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import java.util.UUID;
+
+public record UsuarioLookup(
+        UUID id,
+        String nome,
+        String email
+) {
+}
@@ -0,0 +1,25 @@
+package com.cloud.yagodev.helpdesk.dtos;
+
+import com.cloud.yagodev.helpdesk.enums.Role;
+
+import java.security.Principal;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Principal instalado pelo JwtAuthenticationFilter. Controllers recebem via
+ * {@code @AuthenticationPrincipal} e não precisam buscar o usuário pelo e-mail.
+ */
+public record UsuarioPrincipal(
+        UUID id,
+        String email,
+        String nome,
+        Set<Role> roles
+) implements Principal {
+
+    public boolean hasRole(Role r) { return roles.contains(r); }
+
+    // Authentication.getName() continua devolvendo o e-mail
+    @Override
+    public String getName() { return email; }
+}
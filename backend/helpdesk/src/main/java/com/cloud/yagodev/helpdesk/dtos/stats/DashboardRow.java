@@ -0,0 +1,15 @@
+package com.cloud.yagodev.helpdesk.dtos.stats;
+
+import java.util.UUID;
+
+// linha do GROUPING SETS do dashboard; grupo = S (status), T (técnico), D (dia) ou M (mês)
+public interface DashboardRow {
+    String getGrupo();
+    String getStatus();
+    UUID getTecnicoId();
+    String getTecnicoNome();
+    String getDia();   // YYYY-MM-DD
+    String getMes();   // YYYY-MM
+    Long getTotal();
+    Long getTotalAtivos();
+}
@@ -0,0 +1,12 @@
+package com.cloud.yagodev.helpdesk.dtos.stats;
+
+import java.util.List;
+
+// /stats/dashboard: os quatro agregados do painel numa resposta só
+public record DashboardStats(
+        List<CountByStatus> status,
+        List<CountByTech> tecnicosAtivos,
+        List<CountByDay> porDia,
+        List<CountByMonth> porMes
+) {
+}
@@ -4,6 +4,7 @@ import com.cloud.yagodev.helpdesk.enums.Prioridade;
 import com.cloud.yagodev.helpdesk.enums.StatusChamado;
 import com.cloud.yagodev.helpdesk.enums.TipoEvento;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -12,12 +13,29 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "tb_chamado")
+@Table(name = "tb_chamado", indexes = {
+        // listagens por cursor (createdAt desc, id desc) em cada escopo
+        @Index(name = "ix_chamado_created", columnList = "created_at, id"),
+        @Index(name = "ix_chamado_solicitante_created", columnList = "solicitante_id, created_at, id"),
+        @Index(name = "ix_chamado_tecnico_created", columnList = "tecnico_responsavel_id, created_at, id"),
+        @Index(name = "ix_chamado_status_created", columnList = "status, created_at, id"),
+        // busca por código curto
+        @Index(name = "ix_chamado_codigo", columnList = "codigo"),
+        // feed de alterações (/changes?since=)
+        @Index(name = "ix_chamado_alteracao", columnList = "alteracao_seq"),
+        @Index(name = "ix_chamado_solicitante_alteracao", columnList = "solicitante_id, alteracao_seq")
+})
 public class Chamado {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
+    // código curto (6 últimos hex do id), calculado e gravado pelo próprio banco
+    @Generated
+    @Column(name = "codigo", length = 6, insertable = false, updatable = false,
+            columnDefinition = "varchar(6) generated always as (upper(right(replace(id::text, '-', ''), 6))) stored")
+    private String codigo;
+
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "solicitante_id")
     private Usuario solicitante;
@@ -38,6 +56,10 @@ public class Chamado {
     @Column(nullable = false) private Instant createdAt;
     private Instant closedAt;
 
+    // posição da última alteração no contador tb_chamado_seq (ver ChamadoService)
+    @Column(name = "alteracao_seq")
+    private Long alteracaoSeq;
+
     @OneToMany(mappedBy = "chamado", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("quando ASC")
     private List<ChamadoEvento> eventos = new ArrayList<>();
@@ -55,12 +77,17 @@ public class Chamado {
 
     // Regras de domínio (métodos ricos):
     public void atribuirTecnico(Usuario tecnico, Usuario autor) {
+        atribuirTecnico(tecnico, tecnico.getNome(), autor);
+    }
+
+    // com o nome já em mãos (ex.: do principal), o técnico pode ser só uma referência não carregada
+    public void atribuirTecnico(Usuario tecnico, String tecnicoNome, Usuario autor) {
         if (this.status == StatusChamado.CONCLUIDO || this.status == StatusChamado.CANCELADO) {
             throw new IllegalStateException("Não é possível atribuir técnico a chamado encerrado/cancelado.");
         }
         this.tecnicoResponsavel = tecnico;
         registrarEvento(TipoEvento.ATRIBUICAO, autor,
-                "Técnico " + tecnico.getNome() + " assumiu o chamado.");
+                "Técnico " + tecnicoNome + " assumiu o chamado.");
 
         if (this.status == StatusChamado.ABERTO) {
             alterarStatus(StatusChamado.EM_ATENDIMENTO, autor, "Chamado em atendimento após atribuição.");
@@ -77,13 +104,18 @@ public class Chamado {
         registrarEventoStatus(autor, anterior, novoStatus, detalhe);
     }
 
-    public void comentar(Usuario autor, String mensagem) {
-        registrarEvento(TipoEvento.COMENTARIO, autor, mensagem);
+    public ChamadoEvento comentar(Usuario autor, String mensagem) {
+        return registrarEvento(TipoEvento.COMENTARIO, autor, mensagem);
+    }
+
+    public void marcarAlteracao(long seq) {
+        this.alteracaoSeq = seq;
     }
 
-    private void registrarEvento(TipoEvento tipo, Usuario autor, String detalhe) {
+    private ChamadoEvento registrarEvento(TipoEvento tipo, Usuario autor, String detalhe) {
         ChamadoEvento ev = new ChamadoEvento(this, tipo, autor, detalhe, null, null);
         this.eventos.add(ev);
+        return ev;
     }
 
     private void registrarEventoStatus(Usuario autor, StatusChamado de, StatusChamado para, String detalhe) {
@@ -93,6 +125,7 @@ public class Chamado {
 
     // getters principais
     public UUID getId() { return id; }
+    public String getCodigo() { return codigo; }
     public Usuario getSolicitante() { return solicitante; }
     public Usuario getTecnicoResponsavel() { return tecnicoResponsavel; }
     public String getTitulo() { return titulo; }
@@ -101,5 +134,6 @@ public class Chamado {
     public Prioridade getPrioridade() { return prioridade; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getClosedAt() { return closedAt; }
+    public Long getAlteracaoSeq() { return alteracaoSeq; }
     public List<ChamadoEvento> getEventos() { return Collections.unmodifiableList(eventos); }
 }
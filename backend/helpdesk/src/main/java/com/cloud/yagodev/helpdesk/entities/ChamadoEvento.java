@@ -11,7 +11,7 @@ import java.util.UUID;
 @Table(name = "tb_chamado_evento")
 public class ChamadoEvento {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
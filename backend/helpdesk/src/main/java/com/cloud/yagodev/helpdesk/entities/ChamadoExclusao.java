@@ -0,0 +1,45 @@
+package com.cloud.yagodev.helpdesk.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Lápide de chamado excluído, para o feed de alterações: o chamado some de tb_chamado,
+ * mas quem sincroniza por seq precisa saber que ele deve sair da lista.
+ */
+@Entity
+@Table(name = "tb_chamado_exclusao", indexes = {
+        @Index(name = "ix_chamado_exclusao_seq", columnList = "alteracao_seq"),
+        @Index(name = "ix_chamado_exclusao_solicitante_seq", columnList = "solicitante_id, alteracao_seq")
+})
+public class ChamadoExclusao {
+
+    @Id
+    @Column(name = "chamado_id")
+    private UUID chamadoId;
+
+    @Column(name = "alteracao_seq", nullable = false)
+    private long alteracaoSeq;
+
+    @Column(name = "solicitante_id")
+    private UUID solicitanteId;
+
+    @Column(nullable = false)
+    private Instant excluidoEm;
+
+    protected ChamadoExclusao() {}
+
+    public ChamadoExclusao(UUID chamadoId, long alteracaoSeq, UUID solicitanteId) {
+        this.chamadoId = chamadoId;
+        this.alteracaoSeq = alteracaoSeq;
+        this.solicitanteId = solicitanteId;
+        this.excluidoEm = Instant.now();
+    }
+
+    public UUID getChamadoId() { return chamadoId; }
+    public long getAlteracaoSeq() { return alteracaoSeq; }
+    public UUID getSolicitanteId() { return solicitanteId; }
+    public Instant getExcluidoEm() { return excluidoEm; }
+}
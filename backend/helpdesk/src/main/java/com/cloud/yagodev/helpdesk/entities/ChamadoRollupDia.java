@@ -0,0 +1,55 @@
+package com.cloud.yagodev.helpdesk.entities;
+
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Contador de chamados por (dia de abertura, status atual, prioridade, técnico).
+ * Mantido pelo ChamadoRollupService na mesma transação das mudanças do chamado;
+ * "sem técnico" é gravado como {@link #SEM_TECNICO} para caber na chave primária.
+ */
+@Entity
+@Table(name = "tb_chamado_rollup_dia")
+@IdClass(ChamadoRollupDia.Chave.class)
+public class ChamadoRollupDia {
+
+    public static final UUID SEM_TECNICO = new UUID(0L, 0L);
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Enumerated(EnumType.STRING) @Column(nullable = false)
+    private StatusChamado status;
+
+    @Id
+    @Enumerated(EnumType.STRING) @Column(nullable = false)
+    private Prioridade prioridade;
+
+    @Id
+    @Column(name = "tecnico_id", nullable = false)
+    private UUID tecnicoId;
+
+    @Column(nullable = false)
+    private long total;
+
+    protected ChamadoRollupDia() {}
+
+    public LocalDate getDia() { return dia; }
+    public StatusChamado getStatus() { return status; }
+    public Prioridade getPrioridade() { return prioridade; }
+    public UUID getTecnicoId() { return tecnicoId; }
+    public long getTotal() { return total; }
+
+    public record Chave(LocalDate dia, StatusChamado status, Prioridade prioridade, UUID tecnicoId)
+            implements Serializable {
+        // exigido pelo @IdClass
+        public Chave() { this(null, null, null, null); }
+    }
+}
@@ -12,7 +12,7 @@ import java.util.UUID;
 @Table(name = "tb_usuario")
 public class Usuario {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
 
@@ -25,7 +25,8 @@ public class Usuario {
 
 
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "tb_usuario_role", joinColumns = @JoinColumn(name = "usuario_id"))
+    @CollectionTable(name = "tb_usuario_role", joinColumns = @JoinColumn(name = "usuario_id"),
+            indexes = @Index(name = "ix_usuario_role_role", columnList = "role, usuario_id"))
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false)
     private Set<Role> roles = new HashSet<>();
@@ -0,0 +1,19 @@
+package com.cloud.yagodev.helpdesk.entities;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id UUID gerado por {@link UuidV7Generator} (versão 7, ordenado pelo tempo): inserts caem no
+ * fim do índice da PK em vez de numa página aleatória. Ids v4 já gravados continuam válidos;
+ * a coluna é a mesma.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface UuidV7 {
+}
@@ -0,0 +1,67 @@
+package com.cloud.yagodev.helpdesk.entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUID versão 7 (RFC 9562): 48 bits de epoch em ms, versão, 12 bits de contador e 62 bits
+ * aleatórios (variante no meio).
+ *
+ * <p>O contador (rand_a) começa num valor aleatório a cada milissegundo e sobe a cada id do mesmo
+ * milissegundo, então os ids deste processo saem em ordem estrita. Se esgotar, o tempo avança
+ * 1 ms. Os 62 bits finais vêm do SecureRandom, como no v4: o fim do id (os últimos dígitos hex)
+ * continua tão aleatório quanto antes.</p>
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int CONTADOR_MAX = 0xFFF;
+
+    // (ms << 12) | contador do último id gerado
+    private static final AtomicLong ultimo = new AtomicLong();
+
+    public static UUID gerar() {
+        return gerar(System.currentTimeMillis());
+    }
+
+    static UUID gerar(long agoraMs) {
+        long estado;
+        while (true) {
+            long anterior = ultimo.get();
+            long ms = anterior >>> 12;
+            if (agoraMs > ms) {
+                // metade de baixo: sobra espaço para o contador subir dentro do mesmo ms
+                estado = (agoraMs << 12) | RANDOM.nextInt(CONTADOR_MAX / 2 + 1);
+            } else {
+                // mesmo ms (ou relógio voltou): segue a partir do último; ao esgotar, o contador
+                // transborda para o campo de ms
+                estado = anterior + 1;
+            }
+            if (ultimo.compareAndSet(anterior, estado)) break;
+        }
+        long ms = estado >>> 12;
+        long contador = estado & CONTADOR_MAX;
+
+        long msb = (ms & 0xFFFF_FFFF_FFFFL) << 16 | 0x7000L | contador;
+        long lsb = RANDOM.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return gerar();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -2,6 +2,7 @@ package com.cloud.yagodev.helpdesk.repositories;
 
 import com.cloud.yagodev.helpdesk.dtos.ComentarioSearchResponse;
 import com.cloud.yagodev.helpdesk.entities.ChamadoEvento;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -67,4 +70,111 @@ public interface ChamadoEventoRepository extends JpaRepository<ChamadoEvento, UU
     """)
     Page<ComentarioSearchResponse> searchComentariosDoTecnico(
             @Param("userId") UUID userId, @Param("q") String q, Pageable pageable);
+
+    // ---- carga do índice em memória: comentários em ordem (quando, id), por keyset ----
+    @Query("""
+        select e.id as eventoId, e.quando as quando, e.detalhe as detalhe,
+               c.id as chamadoId, c.titulo as chamadoTitulo,
+               s.id as solicitanteId, t.id as tecnicoId,
+               a.id as autorId, a.nome as autorNome
+        from ChamadoEvento e
+        join e.chamado c
+        join c.solicitante s
+        left join c.tecnicoResponsavel t
+        join e.autor a
+        where e.tipo = com.cloud.yagodev.helpdesk.enums.TipoEvento.COMENTARIO
+          and e.detalhe is not null
+          and (e.quando > :quando or (e.quando = :quando and e.id > :id))
+        order by e.quando, e.id
+    """)
+    List<ComentarioIndexRow> pageComentariosParaIndice(@Param("quando") Instant quando, @Param("id") UUID id,
+                                                       Limit limit);
+
+    // ---- full-text (detalhe_tsv + GIN, ver db/schema-tuning.sql): ranqueado, contagem limitada a :cap ----
+    @Query(value = """
+        select e.id as eventoId, e.quando as quando, e.detalhe as detalhe,
+               c.id as chamadoId, c.titulo as chamadoTitulo,
+               a.id as autorId, a.nome as autorNome
+        from tb_chamado_evento e
+        join tb_chamado c on c.id = e.chamado_id
+        join tb_usuario a on a.id = e.autor_id,
+             websearch_to_tsquery('portuguese', :q) tq
+        where e.tipo = 'COMENTARIO'
+          and e.detalhe_tsv @@ tq
+        order by ts_rank_cd(e.detalhe_tsv, tq) desc, e.quando desc
+        offset :offset limit :limit
+    """, nativeQuery = true)
+    List<ComentarioSearchRow> ftsComentariosAll(@Param("q") String q,
+            @Param("offset") int offset, @Param("limit") int limit);
+
+    @Query(value = """
+        select count(*) from (
+            select 1
+            from tb_chamado_evento e
+            where e.tipo = 'COMENTARIO'
+              and e.detalhe_tsv @@ websearch_to_tsquery('portuguese', :q)
+            limit :cap
+        ) x
+    """, nativeQuery = true)
+    long countFtsComentariosAll(@Param("q") String q, @Param("cap") int cap);
+
+    @Query(value = """
+        select e.id as eventoId, e.quando as quando, e.detalhe as detalhe,
+               c.id as chamadoId, c.titulo as chamadoTitulo,
+               a.id as autorId, a.nome as autorNome
+        from tb_chamado_evento e
+        join tb_chamado c on c.id = e.chamado_id
+        join tb_usuario a on a.id = e.autor_id,
+             websearch_to_tsquery('portuguese', :q) tq
+        where e.tipo = 'COMENTARIO'
+          and e.detalhe_tsv @@ tq
+          and c.solicitante_id = :userId
+        order by ts_rank_cd(e.detalhe_tsv, tq) desc, e.quando desc
+        offset :offset limit :limit
+    """, nativeQuery = true)
+    List<ComentarioSearchRow> ftsComentariosDoSolicitante(@Param("userId") UUID userId, @Param("q") String q,
+            @Param("offset") int offset, @Param("limit") int limit);
+
+    @Query(value = """
+        select count(*) from (
+            select 1
+            from tb_chamado_evento e
+            join tb_chamado c on c.id = e.chamado_id
+            where e.tipo = 'COMENTARIO'
+              and e.detalhe_tsv @@ websearch_to_tsquery('portuguese', :q)
+              and c.solicitante_id = :userId
+            limit :cap
+        ) x
+    """, nativeQuery = true)
+    long countFtsComentariosDoSolicitante(@Param("userId") UUID userId, @Param("q") String q, @Param("cap") int cap);
+
+    @Query(value = """
+        select e.id as eventoId, e.quando as quando, e.detalhe as detalhe,
+               c.id as chamadoId, c.titulo as chamadoTitulo,
+               a.id as autorId, a.nome as autorNome
+        from tb_chamado_evento e
+        join tb_chamado c on c.id = e.chamado_id
+        join tb_usuario a on a.id = e.autor_id,
+             websearch_to_tsquery('portuguese', :q) tq
+        where e.tipo = 'COMENTARIO'
+          and e.detalhe_tsv @@ tq
+          and c.tecnico_responsavel_id = :userId
+        order by ts_rank_cd(e.detalhe_tsv, tq) desc, e.quando desc
+        offset :offset limit :limit
+    """, nativeQuery = true)
+    List<ComentarioSearchRow> ftsComentariosDoTecnico(@Param("userId") UUID userId, @Param("q") String q,
+            @Param("offset") int offset, @Param("limit") int limit);
+
+    @Query(value = """
+        select count(*) from (
+            select 1
+            from tb_chamado_evento e
+            join tb_chamado c on c.id = e.chamado_id
+            where e.tipo = 'COMENTARIO'
+              and e.detalhe_tsv @@ websearch_to_tsquery('portuguese', :q)
+              and c.tecnico_responsavel_id = :userId
+            limit :cap
+        ) x
+    """, nativeQuery = true)
+    long countFtsComentariosDoTecnico(@Param("userId") UUID userId, @Param("q") String q, @Param("cap") int cap);
 }
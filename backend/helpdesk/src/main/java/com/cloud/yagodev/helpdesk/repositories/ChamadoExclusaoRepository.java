@@ -0,0 +1,31 @@
+package com.cloud.yagodev.helpdesk.repositories;
+
+import com.cloud.yagodev.helpdesk.entities.ChamadoExclusao;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ChamadoExclusaoRepository extends JpaRepository<ChamadoExclusao, UUID> {
+
+    @Query("""
+        select e from ChamadoExclusao e
+        where e.alteracaoSeq > :since and e.alteracaoSeq <= :ate
+        order by e.alteracaoSeq
+    """)
+    List<ChamadoExclusao> desde(@Param("since") long since, @Param("ate") long ate, Limit limit);
+
+    @Query("""
+        select e from ChamadoExclusao e
+        where e.solicitanteId = :solicitanteId
+          and e.alteracaoSeq > :since and e.alteracaoSeq <= :ate
+        order by e.alteracaoSeq
+    """)
+    List<ChamadoExclusao> desdeDoSolicitante(@Param("solicitanteId") UUID solicitanteId,
+                                             @Param("since") long since, @Param("ate") long ate, Limit limit);
+}
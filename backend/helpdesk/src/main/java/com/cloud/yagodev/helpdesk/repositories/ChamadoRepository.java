@@ -1,16 +1,25 @@
 package com.cloud.yagodev.helpdesk.repositories;
 
+import com.cloud.yagodev.helpdesk.dtos.ChamadoCodigoDto;
+import com.cloud.yagodev.helpdesk.dtos.ChamadoSummary;
+import com.cloud.yagodev.helpdesk.dtos.stats.DashboardRow;
 import com.cloud.yagodev.helpdesk.dtos.stats.TimeBucketCount;
 import com.cloud.yagodev.helpdesk.entities.Chamado;
 import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChamadoRepository extends JpaRepository<Chamado, UUID> {
@@ -18,6 +27,206 @@ public interface ChamadoRepository extends JpaRepository<Chamado, UUID> {
     List<Chamado> findByTecnicoResponsavelId(UUID tecnicoId);
     List<Chamado> findByStatus(StatusChamado status);
 
+    // ---- listagens por cursor: (createdAt, id) < cursor, ordem estável desc ----
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        where (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<Chamado> pageTodos(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        where c.solicitante.id = :solicitanteId
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<Chamado> pageBySolicitante(@Param("solicitanteId") UUID solicitanteId,
+                                    @Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        where c.tecnicoResponsavel.id = :tecnicoId
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<Chamado> pageByTecnico(@Param("tecnicoId") UUID tecnicoId,
+                                @Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        where c.status = :status
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<Chamado> pageByStatus(@Param("status") StatusChamado status,
+                               @Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        where c.status = com.cloud.yagodev.helpdesk.enums.StatusChamado.ABERTO
+          and c.tecnicoResponsavel is null
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<Chamado> pageSemTecnico(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    // ---- fila sem técnico: CRITICA → BAIXA, mais antigos primeiro (índice parcial ix_chamado_fila_sem_tecnico) ----
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        where c.status = com.cloud.yagodev.helpdesk.enums.StatusChamado.ABERTO
+          and c.tecnicoResponsavel is null
+        order by case c.prioridade
+                     when com.cloud.yagodev.helpdesk.enums.Prioridade.CRITICA then 0
+                     when com.cloud.yagodev.helpdesk.enums.Prioridade.ALTA then 1
+                     when com.cloud.yagodev.helpdesk.enums.Prioridade.MEDIA then 2
+                     else 3 end,
+                 c.createdAt, c.id
+    """)
+    List<Chamado> filaSemTecnico(Limit limit);
+
+    // sem join com o técnico: o filtro fica na FK e casa com o índice parcial da fila
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoSummary(
+            c.id, c.titulo, c.status, c.prioridade, s.id, s.nome, c.tecnicoResponsavel.id, cast(null as String), c.createdAt, c.closedAt)
+        from Chamado c
+        join c.solicitante s
+        where c.status = com.cloud.yagodev.helpdesk.enums.StatusChamado.ABERTO
+          and c.tecnicoResponsavel is null
+        order by case c.prioridade
+                     when com.cloud.yagodev.helpdesk.enums.Prioridade.CRITICA then 0
+                     when com.cloud.yagodev.helpdesk.enums.Prioridade.ALTA then 1
+                     when com.cloud.yagodev.helpdesk.enums.Prioridade.MEDIA then 2
+                     else 3 end,
+                 c.createdAt, c.id
+    """)
+    List<ChamadoSummary> filaSemTecnicoSummary(Limit limit);
+
+    // ---- mesmas listagens, projetadas em ChamadoSummary (uma query, sem eventos) ----
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoSummary(
+            c.id, c.titulo, c.status, c.prioridade, s.id, s.nome, t.id, t.nome, c.createdAt, c.closedAt)
+        from Chamado c
+        join c.solicitante s
+        left join c.tecnicoResponsavel t
+        where (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<ChamadoSummary> summaryTodos(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoSummary(
+            c.id, c.titulo, c.status, c.prioridade, s.id, s.nome, t.id, t.nome, c.createdAt, c.closedAt)
+        from Chamado c
+        join c.solicitante s
+        left join c.tecnicoResponsavel t
+        where s.id = :solicitanteId
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<ChamadoSummary> summaryBySolicitante(@Param("solicitanteId") UUID solicitanteId,
+                                              @Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoSummary(
+            c.id, c.titulo, c.status, c.prioridade, s.id, s.nome, t.id, t.nome, c.createdAt, c.closedAt)
+        from Chamado c
+        join c.solicitante s
+        left join c.tecnicoResponsavel t
+        where t.id = :tecnicoId
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<ChamadoSummary> summaryByTecnico(@Param("tecnicoId") UUID tecnicoId,
+                                          @Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoSummary(
+            c.id, c.titulo, c.status, c.prioridade, s.id, s.nome, t.id, t.nome, c.createdAt, c.closedAt)
+        from Chamado c
+        join c.solicitante s
+        left join c.tecnicoResponsavel t
+        where c.status = :status
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<ChamadoSummary> summaryByStatus(@Param("status") StatusChamado status,
+                                         @Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    // sem join com o técnico: o filtro fica na FK e casa com o índice parcial da fila
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoSummary(
+            c.id, c.titulo, c.status, c.prioridade, s.id, s.nome, c.tecnicoResponsavel.id, cast(null as String), c.createdAt, c.closedAt)
+        from Chamado c
+        join c.solicitante s
+        where c.status = com.cloud.yagodev.helpdesk.enums.StatusChamado.ABERTO
+          and c.tecnicoResponsavel is null
+          and (c.createdAt, c.id) < (:createdAt, :id)
+        order by c.createdAt desc, c.id desc
+    """)
+    List<ChamadoSummary> summarySemTecnico(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
+
+    // ---- feed de alterações: (since, ate] em ordem de seq ----
+
+    // contador único (linha de tb_chamado_seq): o lock da linha dura até o commit,
+    // então os números saem na ordem em que as transações confirmam
+    @Query(value = "update tb_chamado_seq set valor = valor + 1 where id = 1 returning valor", nativeQuery = true)
+    long proximaAlteracao();
+
+    @Query(value = "select valor from tb_chamado_seq where id = 1", nativeQuery = true)
+    long ultimaAlteracao();
+
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        where c.alteracaoSeq > :since and c.alteracaoSeq <= :ate
+        order by c.alteracaoSeq
+    """)
+    List<Chamado> alteradosDesde(@Param("since") long since, @Param("ate") long ate, Limit limit);
+
+    @Query("""
+        select c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        where c.solicitante.id = :solicitanteId
+          and c.alteracaoSeq > :since and c.alteracaoSeq <= :ate
+        order by c.alteracaoSeq
+    """)
+    List<Chamado> alteradosDesdeDoSolicitante(@Param("solicitanteId") UUID solicitanteId,
+                                              @Param("since") long since, @Param("ate") long ate, Limit limit);
+
+    // Detalhe: chamado + pessoas + eventos (com autor) numa única query
+    @Query("""
+        select distinct c from Chamado c
+        join fetch c.solicitante
+        left join fetch c.tecnicoResponsavel
+        left join fetch c.eventos e
+        left join fetch e.autor
+        where c.id = :id
+    """)
+    Optional<Chamado> findDetalhe(@Param("id") UUID id);
+
+    // Carga do ChamadoStatsMemoria: todos os chamados, lidos em streaming
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        select c.createdAt as createdAt, c.status as status, c.prioridade as prioridade,
+               t.id as tecnicoId, t.nome as tecnicoNome
+        from Chamado c
+        left join c.tecnicoResponsavel t
+    """)
+    Stream<ChamadoStatsRow> streamParaEstatisticas();
+
     // Totais por status (faixa de datas)
     @Query("""
         select new com.cloud.yagodev.helpdesk.dtos.stats.CountByStatus(c.status, count(c))
@@ -64,18 +273,46 @@ public interface ChamadoRepository extends JpaRepository<Chamado, UUID> {
     """, nativeQuery = true)
     List<TimeBucketCount> countPerMonth(@Param("start") Instant start, @Param("end") Instant end);
 
-    // Lista pares {id, codigo} para todos
+    // Dashboard direto em tb_chamado: os quatro agregados numa única varredura (GROUPING SETS)
     @Query(value = """
-        select c.id as id, right(replace(c.id::text, '-', ''), 6) as codigo
-        from tb_chamado c
+        with c as (
+            select status, tecnico_responsavel_id as tecnico_id,
+                   (created_at at time zone :zona)::date as dia
+            from tb_chamado
+            where created_at >= :start and created_at < :end
+        )
+        select case when grouping(c.status) = 0 then 'S'
+                    when grouping(c.tecnico_id) = 0 then 'T'
+                    when grouping(c.dia) = 0 then 'D'
+                    else 'M' end as grupo,
+               c.status as status, c.tecnico_id as tecnicoId, u.nome as tecnicoNome,
+               to_char(c.dia, 'YYYY-MM-DD') as dia, to_char(c.dia, 'YYYY-MM') as mes,
+               count(*) as total,
+               count(*) filter (where c.status in ('ABERTO', 'EM_ATENDIMENTO')) as totalAtivos
+        from c
+        left join tb_usuario u on u.id = c.tecnico_id
+        group by grouping sets ((c.status), (c.tecnico_id, u.nome), (c.dia), (to_char(c.dia, 'YYYY-MM')))
     """, nativeQuery = true)
-    List<ChamadoShortCodeProjection> listShortCodes();
+    List<DashboardRow> dashboard(@Param("start") Instant start, @Param("end") Instant end, @Param("zona") String zona);
 
-    // Busca chamados cujo código curto == :codigo (case-insensitive)
-    @Query(value = """
-        select *
-        from tb_chamado c
-        where right(replace(c.id::text, '-', ''), 6) ilike :codigo
-    """, nativeQuery = true)
+    // Código curto: coluna gerada "codigo" (índice ix_chamado_codigo)
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoCodigoDto(c.id, c.codigo)
+        from Chamado c
+        where c.id = :id
+    """)
+    Optional<ChamadoCodigoDto> findCodigo(@Param("id") UUID id);
+
+    // Pares {id, codigo} em ordem de id, a partir de :after (keyset)
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.ChamadoCodigoDto(c.id, c.codigo)
+        from Chamado c
+        where c.id > :after
+        order by c.id
+    """)
+    List<ChamadoCodigoDto> pageCodigos(@Param("after") UUID after, Limit limit);
+
+    // Busca chamados cujo código curto == :codigo (já normalizado em maiúsculas)
+    @Query("select c from Chamado c where c.codigo = :codigo")
     List<Chamado> findByShortCode(@Param("codigo") String codigo);
 }
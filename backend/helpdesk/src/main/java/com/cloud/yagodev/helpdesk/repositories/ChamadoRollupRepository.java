@@ -0,0 +1,113 @@
+package com.cloud.yagodev.helpdesk.repositories;
+
+import com.cloud.yagodev.helpdesk.dtos.stats.CountByDay;
+import com.cloud.yagodev.helpdesk.dtos.stats.CountByStatus;
+import com.cloud.yagodev.helpdesk.dtos.stats.CountByTech;
+import com.cloud.yagodev.helpdesk.dtos.stats.DashboardRow;
+import com.cloud.yagodev.helpdesk.entities.ChamadoRollupDia;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ChamadoRollupRepository extends JpaRepository<ChamadoRollupDia, ChamadoRollupDia.Chave> {
+
+    // soma :delta ao contador (cria a linha se não existir)
+    @Modifying
+    @Query(value = """
+        insert into tb_chamado_rollup_dia (dia, status, prioridade, tecnico_id, total)
+        values (:dia, :status, :prioridade, :tecnicoId, :delta)
+        on conflict (dia, status, prioridade, tecnico_id)
+        do update set total = tb_chamado_rollup_dia.total + excluded.total
+    """, nativeQuery = true)
+    void somar(@Param("dia") LocalDate dia, @Param("status") String status, @Param("prioridade") String prioridade,
+               @Param("tecnicoId") UUID tecnicoId, @Param("delta") long delta);
+
+    // ---- reconstrução a partir de tb_chamado (corrige qualquer desvio) ----
+    // só um nó reconstrói por vez; a trava é solta no fim da transação
+    @Query(value = "select pg_try_advisory_xact_lock(:chave)", nativeQuery = true)
+    boolean travarReconstrucao(@Param("chave") long chave);
+
+    // rollup vazio ou com total diferente do número de chamados: precisa reconstruir
+    @Query(value = """
+        select (select coalesce(sum(total), 0) from tb_chamado_rollup_dia)
+             = (select count(*) from tb_chamado)
+    """, nativeQuery = true)
+    boolean totalConfere();
+
+    @Modifying
+    @Query(value = "lock table tb_chamado_rollup_dia in exclusive mode", nativeQuery = true)
+    void travar();
+
+    @Modifying
+    @Query(value = "delete from tb_chamado_rollup_dia", nativeQuery = true)
+    void limpar();
+
+    @Modifying
+    @Query(value = """
+        insert into tb_chamado_rollup_dia (dia, status, prioridade, tecnico_id, total)
+        select (c.created_at at time zone :zona)::date, c.status, c.prioridade,
+               coalesce(c.tecnico_responsavel_id, '00000000-0000-0000-0000-000000000000'::uuid),
+               count(*)
+        from tb_chamado c
+        group by 1, 2, 3, 4
+    """, nativeQuery = true)
+    int recalcular(@Param("zona") String zona);
+
+    // ---- leituras dos endpoints de estatística ----
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.stats.CountByStatus(r.status, sum(r.total))
+        from ChamadoRollupDia r
+        where r.dia between :from and :to
+        group by r.status
+        having sum(r.total) > 0
+    """)
+    List<CountByStatus> countByStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.stats.CountByTech(u.id, u.nome, sum(r.total))
+        from ChamadoRollupDia r, Usuario u
+        where u.id = r.tecnicoId
+          and r.status in :statuses
+          and r.dia between :from and :to
+        group by u.id, u.nome
+        having sum(r.total) > 0
+        order by sum(r.total) desc
+    """)
+    List<CountByTech> countByTechAndStatusIn(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                             @Param("statuses") List<StatusChamado> statuses);
+
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.stats.CountByDay(r.dia, sum(r.total))
+        from ChamadoRollupDia r
+        where r.dia between :from and :to
+        group by r.dia
+        having sum(r.total) > 0
+        order by r.dia
+    """)
+    List<CountByDay> countPerDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Dashboard: status, técnicos (ativos), dia e mês numa única passada pelo rollup
+    @Query(value = """
+        select case when grouping(r.status) = 0 then 'S'
+                    when grouping(r.tecnico_id) = 0 then 'T'
+                    when grouping(r.dia) = 0 then 'D'
+                    else 'M' end as grupo,
+               r.status as status, r.tecnico_id as tecnicoId, u.nome as tecnicoNome,
+               to_char(r.dia, 'YYYY-MM-DD') as dia, to_char(r.dia, 'YYYY-MM') as mes,
+               sum(r.total) as total,
+               coalesce(sum(r.total) filter (where r.status in ('ABERTO', 'EM_ATENDIMENTO')), 0) as totalAtivos
+        from tb_chamado_rollup_dia r
+        left join tb_usuario u on u.id = r.tecnico_id
+        where r.dia between :from and :to
+        group by grouping sets ((r.status), (r.tecnico_id, u.nome), (r.dia), (to_char(r.dia, 'YYYY-MM')))
+    """, nativeQuery = true)
+    List<DashboardRow> dashboard(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
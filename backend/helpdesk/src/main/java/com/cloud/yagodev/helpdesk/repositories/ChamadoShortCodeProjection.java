@@ -1,8 +0,0 @@
-package com.cloud.yagodev.helpdesk.repositories;
-
-import java.util.UUID;
-
-public interface ChamadoShortCodeProjection {
-    UUID getId();
-    String getCodigo();
-}
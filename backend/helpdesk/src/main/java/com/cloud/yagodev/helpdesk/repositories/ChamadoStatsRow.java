@@ -0,0 +1,16 @@
+package com.cloud.yagodev.helpdesk.repositories;
+
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// carga dos contadores em memória (ChamadoStatsMemoria)
+public interface ChamadoStatsRow {
+    Instant getCreatedAt();
+    StatusChamado getStatus();
+    Prioridade getPrioridade();
+    UUID getTecnicoId();
+    String getTecnicoNome();
+}
@@ -0,0 +1,17 @@
+package com.cloud.yagodev.helpdesk.repositories;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// carga do índice de comentários em memória (ComentarioIndexService)
+public interface ComentarioIndexRow {
+    UUID getEventoId();
+    Instant getQuando();
+    String getDetalhe();
+    UUID getChamadoId();
+    String getChamadoTitulo();
+    UUID getSolicitanteId();
+    UUID getTecnicoId();
+    UUID getAutorId();
+    String getAutorNome();
+}
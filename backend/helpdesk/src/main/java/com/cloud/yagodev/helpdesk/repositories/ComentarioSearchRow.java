@@ -0,0 +1,15 @@
+package com.cloud.yagodev.helpdesk.repositories;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// linha das buscas nativas de comentários (full-text)
+public interface ComentarioSearchRow {
+    UUID getEventoId();
+    Instant getQuando();
+    String getDetalhe();
+    UUID getChamadoId();
+    String getChamadoTitulo();
+    UUID getAutorId();
+    String getAutorNome();
+}
@@ -1,7 +1,11 @@
 package com.cloud.yagodev.helpdesk.repositories;
 
+import com.cloud.yagodev.helpdesk.dtos.UsuarioLookup;
 import com.cloud.yagodev.helpdesk.entities.Usuario;
+import com.cloud.yagodev.helpdesk.enums.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +17,13 @@ public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
     Optional<Usuario> findByEmailIgnoreCase(String email);
     boolean existsByEmailIgnoreCase(String email);
     List<Usuario> findByAtivoTrue();
+
+    // filtra pela role no banco (join em tb_usuario_role) e já projeta só o necessário
+    @Query("""
+        select new com.cloud.yagodev.helpdesk.dtos.UsuarioLookup(u.id, u.nome, u.email)
+        from Usuario u join u.roles r
+        where r = :role and u.ativo = true
+        order by u.nome, u.id
+    """)
+    List<UsuarioLookup> lookupAtivosPorRole(@Param("role") Role role);
 }
@@ -0,0 +1,107 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.entities.Chamado;
+import com.cloud.yagodev.helpdesk.entities.ChamadoRollupDia;
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+import com.cloud.yagodev.helpdesk.repositories.ChamadoRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Mantém tb_chamado_rollup_dia. O ChamadoService captura o {@link Estado} do chamado antes
+ * e depois de cada mudança e chama {@link #aplicar}, que move uma unidade entre os contadores
+ * na mesma transação. No modo memoria a tabela fica parada: a mudança vai só para o
+ * {@link ChamadoStatsMemoria}, após o commit, e não há reconstrução.
+ *
+ * <p>A reconstrução completa trava a tabela, então roda pouco: ao subir só se o rollup estiver
+ * vazio, com total diferente de tb_chamado, ou se {@code app.stats.rollup.reconstruir-ao-subir}
+ * pedir; e no cron noturno. Nos dois casos uma advisory lock garante um nó por vez no cluster.</p>
+ */
+@Service
+public class ChamadoRollupService {
+
+    /** Posição do chamado no rollup. */
+    public record Estado(LocalDate dia, StatusChamado status, Prioridade prioridade, UUID tecnicoId) {}
+
+    private final ChamadoRollupRepository repo;
+    private final ChamadoStatsMemoria memoria;
+    private final ChamadoVersionService versoes;
+    private final boolean reconstruirSempre;
+    private final ZoneId zone = ZoneId.systemDefault(); // mesma zona do ChamadoStatsService
+
+    // chave da advisory lock da reconstrução (qualquer número fixo, único no banco)
+    private static final long TRAVA_RECONSTRUCAO = 0x726f6c6c7570L;
+
+    private static final Logger log = LoggerFactory.getLogger(ChamadoRollupService.class);
+
+    public ChamadoRollupService(ChamadoRollupRepository repo, ChamadoStatsMemoria memoria,
+                                ChamadoVersionService versoes,
+                                @Value("${app.stats.rollup.reconstruir-ao-subir:false}") boolean reconstruirSempre) {
+        this.repo = repo;
+        this.memoria = memoria;
+        this.versoes = versoes;
+        this.reconstruirSempre = reconstruirSempre;
+    }
+
+    public Estado estado(Chamado c) {
+        UUID tecnico = c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getId() : null;
+        return new Estado(c.getCreatedAt().atZone(zone).toLocalDate(), c.getStatus(), c.getPrioridade(), tecnico);
+    }
+
+    /** Move o chamado de {@code antes} para {@code depois}; null = criado / excluído. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicar(Estado antes, Estado depois) {
+        if (Objects.equals(antes, depois)) return;
+        if (memoria.ativo()) {
+            // modo memoria: ninguém lê o rollup, então nada de upsert por mudança
+            memoria.aplicarAposCommit(antes, depois);
+            return;
+        }
+        if (antes != null) somar(antes, -1);
+        if (depois != null) somar(depois, 1);
+    }
+
+    private void somar(Estado e, long delta) {
+        repo.somar(e.dia(), e.status().name(), e.prioridade().name(),
+                e.tecnicoId() != null ? e.tecnicoId() : ChamadoRollupDia.SEM_TECNICO, delta);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconstruirAoSubir() {
+        if (memoria.ativo()) return;
+        if (!repo.travarReconstrucao(TRAVA_RECONSTRUCAO)) return; // outro nó está reconstruindo
+        if (!reconstruirSempre && repo.totalConfere()) return;
+        log.info("Reconstruindo tb_chamado_rollup_dia na subida");
+        reconstruir();
+    }
+
+    @Scheduled(cron = "${app.stats.rollup.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public void reconstruirAgendado() {
+        if (memoria.ativo()) return;
+        if (!repo.travarReconstrucao(TRAVA_RECONSTRUCAO)) return;
+        reconstruir();
+    }
+
+    // trava a tabela: deltas concorrentes esperam e são aplicados sobre o resultado novo
+    private void reconstruir() {
+        repo.travar();
+        repo.limpar();
+        repo.recalcular(zone.getId());
+        versoes.estatisticasRecalculadas(); // a correção pode mudar faixas encerradas: invalida o cache de estatísticas
+    }
+}
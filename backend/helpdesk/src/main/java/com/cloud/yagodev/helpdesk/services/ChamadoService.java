@@ -3,134 +3,159 @@ package com.cloud.yagodev.helpdesk.services;
 import com.cloud.yagodev.helpdesk.dtos.*;
 import com.cloud.yagodev.helpdesk.entities.Chamado;
 import com.cloud.yagodev.helpdesk.entities.ChamadoEvento;
+import com.cloud.yagodev.helpdesk.entities.ChamadoExclusao;
 import com.cloud.yagodev.helpdesk.entities.Usuario;
 import com.cloud.yagodev.helpdesk.enums.NotificationType;
 import com.cloud.yagodev.helpdesk.enums.Role;
 import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+import com.cloud.yagodev.helpdesk.repositories.ChamadoExclusaoRepository;
 import com.cloud.yagodev.helpdesk.repositories.ChamadoRepository;
 import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.Method;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class ChamadoService {
 
     private final UsuarioRepository usuarioRepo;
     private final ChamadoRepository chamadoRepo;
+    private final ChamadoExclusaoRepository exclusaoRepo;
     private final NotificationService notifications;
+    private final ComentarioIndexService comentarios;
+    private final ChamadoRollupService rollup;
 
-    private final AtomicLong lastUpdate = new AtomicLong(System.currentTimeMillis());
-    private void touch() { lastUpdate.set(System.currentTimeMillis()); }
-    public long getLastUpdate() { return lastUpdate.get(); }
+    private final ChamadoVersionService versoes;
+    private void touch(Chamado c) { touch(c, null); }
+
+    // chamada no fim de cada mudança: o número do feed é pego por último para segurar
+    // o lock de tb_chamado_seq só até o commit
+    private void touch(Chamado c, UUID tecnicoAnterior) {
+        c.marcarAlteracao(chamadoRepo.proximaAlteracao());
+        versoes.alterado(c, tecnicoAnterior);
+    }
+    public long getLastUpdate() { return versoes.lastUpdate(); }
 
     public ChamadoService(UsuarioRepository usuarioRepo,
                           ChamadoRepository chamadoRepo,
-                          NotificationService notifications) {
+                          ChamadoExclusaoRepository exclusaoRepo,
+                          NotificationService notifications,
+                          ComentarioIndexService comentarios,
+                          ChamadoRollupService rollup,
+                          ChamadoVersionService versoes) {
         this.usuarioRepo = usuarioRepo;
         this.chamadoRepo = chamadoRepo;
+        this.exclusaoRepo = exclusaoRepo;
         this.notifications = notifications;
+        this.comentarios = comentarios;
+        this.rollup = rollup;
+        this.versoes = versoes;
     }
 
     @Transactional
-    public Chamado abrirChamado(UUID solicitanteId, ChamadoCreateRequest req) {
-        Usuario solicitante = getUsuario(solicitanteId);
-        if (!solicitante.getRoles().contains(Role.USUARIO_COMUM)
-                && !solicitante.getRoles().contains(Role.ADMIN)) {
+    public Chamado abrirChamado(UsuarioPrincipal me, ChamadoCreateRequest req) {
+        if (!me.hasRole(Role.USUARIO_COMUM) && !me.hasRole(Role.ADMIN)) {
             throw new IllegalStateException("Apenas USUARIO_COMUM ou ADMIN podem abrir chamados.");
         }
+        Usuario solicitante = ref(me);
         Chamado c = new Chamado(solicitante, req.titulo(), req.descricao(), req.prioridade());
-        c.comentar(solicitante, "Chamado criado por " + solicitante.getNome());
+        ChamadoEvento criado = c.comentar(solicitante, "Chamado criado por " + me.nome());
         c.alterarStatus(StatusChamado.ABERTO, solicitante, "Status inicial: ABERTO");
         c = chamadoRepo.save(c);
+        rollup.aplicar(null, rollup.estado(c));
+        comentarios.comentarioCriado(criado, c, me);
 
         // Notifica ADMIN + todos os TÉCNICOS + o próprio solicitante (para atualizar a lista dele)
         var dto = NotificationDto.of(
                 NotificationType.CHAMADO_CRIADO,
                 "Novo chamado: " + c.getTitulo(),
-                toResponse(c)
+                toResponse(c, me)
         );
-        notifications.sendToRole(Role.ADMIN, dto);
-        notifications.sendToRole(Role.TECNICO, dto);
-        notifications.sendToUser(solicitante.getId(), dto);
-        touch();
+        notifications.send(dto, EnumSet.of(Role.ADMIN, Role.TECNICO), List.of(me.id()));
+        touch(c);
         return c;
     }
 
     @Transactional
-    public Chamado assumir(UUID tecnicoId, UUID chamadoId) {
-        Usuario tecnico = getUsuario(tecnicoId);
-        if (!tecnico.getRoles().contains(Role.TECNICO) && !tecnico.getRoles().contains(Role.ADMIN)) {
+    public Chamado assumir(UsuarioPrincipal me, UUID chamadoId) {
+        if (!me.hasRole(Role.TECNICO) && !me.hasRole(Role.ADMIN)) {
             throw new IllegalStateException("Somente TECNICO ou ADMIN podem assumir chamados.");
         }
+        Usuario tecnico = ref(me);
         Chamado c = getChamado(chamadoId);
-        c.atribuirTecnico(tecnico, tecnico);
+        var antes = rollup.estado(c);
+        UUID tecnicoAnterior = antes.tecnicoId();
+        c.atribuirTecnico(tecnico, me.nome(), tecnico);
+        rollup.aplicar(antes, rollup.estado(c));
+        comentarios.tecnicoAlterado(c.getId(), me.id());
 
         // Notifica o técnico que assumiu (útil se ele estiver em outra aba/dispositivo)
         var dto = NotificationDto.of(
                 NotificationType.CHAMADO_ATRIBUIDO,
                 "Você assumiu: " + c.getTitulo(),
-                toResponse(c)
+                toResponse(c, me)
         );
-        notifications.sendToUser(tecnico.getId(), dto);
+        notifications.sendToUser(me.id(), dto);
 
-        touch();
+        touch(c, tecnicoAnterior);
         return c;
     }
 
     @Transactional
-    public Chamado alterarStatus(UUID autorId, UUID chamadoId, StatusChangeRequest req) {
-        Usuario autor = getUsuario(autorId);
+    public Chamado alterarStatus(UsuarioPrincipal me, UUID chamadoId, StatusChangeRequest req) {
         Chamado c = getChamado(chamadoId);
 
         if (req.novoStatus() == StatusChamado.CONCLUIDO) {
             boolean pode = (c.getTecnicoResponsavel() != null
-                    && c.getTecnicoResponsavel().getId().equals(autor.getId()))
-                    || autor.getRoles().contains(Role.ADMIN);
+                    && c.getTecnicoResponsavel().getId().equals(me.id()))
+                    || me.hasRole(Role.ADMIN);
             if (!pode) throw new IllegalStateException("Apenas o técnico responsável ou ADMIN podem concluir.");
         }
         StatusChamado anterior = c.getStatus();
-        c.alterarStatus(req.novoStatus(), autor, req.detalhe());
+        var antes = rollup.estado(c);
+        c.alterarStatus(req.novoStatus(), ref(me), req.detalhe());
+        rollup.aplicar(antes, rollup.estado(c));
 
         // (Opcional) Notifique mudança de status para ADMIN, técnico responsável e solicitante
         var dto = NotificationDto.of(
                 NotificationType.STATUS_ALTERADO,
                 "Status alterado de " + anterior + " para " + c.getStatus(),
-                toResponse(c)
+                toResponse(c, me)
         );
-        notifications.sendToRole(Role.ADMIN, dto);
-        if (c.getTecnicoResponsavel() != null) notifications.sendToUser(c.getTecnicoResponsavel().getId(), dto);
-        if (c.getSolicitante() != null) notifications.sendToUser(c.getSolicitante().getId(), dto);
+        notifications.send(dto, EnumSet.of(Role.ADMIN), envolvidos(c));
 
-        touch();
+        touch(c);
         return c;
     }
 
     @Transactional
-    public Chamado comentar(UUID autorId, UUID chamadoId, ComentarioRequest req) {
-        Usuario autor = getUsuario(autorId);
+    public Chamado comentar(UsuarioPrincipal me, UUID chamadoId, ComentarioRequest req) {
         Chamado c = getChamado(chamadoId);
-        c.comentar(autor, req.mensagem());
+        ChamadoEvento ev = c.comentar(ref(me), req.mensagem());
+        comentarios.comentarioCriado(ev, c, me);
 
-        touch();
+        touch(c);
         return c;
     }
 
     @Transactional
-    public void excluirChamado(UUID autorId, UUID chamadoId) {
-        Usuario autor = getUsuario(autorId);
+    public void excluirChamado(UsuarioPrincipal me, UUID chamadoId) {
         Chamado c = getChamado(chamadoId);
 
-        boolean isAdmin = autor.getRoles().contains(Role.ADMIN);
+        boolean isAdmin = me.hasRole(Role.ADMIN);
         boolean isDono  = c.getSolicitante() != null
-                && c.getSolicitante().getId().equals(autor.getId());
+                && c.getSolicitante().getId().equals(me.id());
 
         if (!isAdmin && !isDono) {
             throw new AccessDeniedException("Você não pode excluir este chamado.");
@@ -143,15 +168,18 @@ public class ChamadoService {
                 throw new IllegalStateException("Chamado com técnico atribuído não pode ser excluído pelo solicitante.");
             }
         }
-        touch();
+        rollup.aplicar(rollup.estado(c), null);
         chamadoRepo.delete(c);
+        comentarios.chamadoExcluido(chamadoId);
+        UUID solicitanteId = c.getSolicitante() != null ? c.getSolicitante().getId() : null;
+        exclusaoRepo.save(new ChamadoExclusao(chamadoId, chamadoRepo.proximaAlteracao(), solicitanteId));
+        versoes.excluido(c);
     }
 
     /** ADMIN designa qualquer técnico para um chamado. */
     @Transactional
-    public Chamado designarTecnico(UUID adminId, UUID chamadoId, UUID tecnicoId) {
-        Usuario admin = getUsuario(adminId);
-        if (!admin.getRoles().contains(Role.ADMIN)) {
+    public Chamado designarTecnico(UsuarioPrincipal me, UUID chamadoId, UUID tecnicoId) {
+        if (!me.hasRole(Role.ADMIN)) {
             throw new AccessDeniedException("Somente ADMIN pode designar técnico explicitamente.");
         }
         Usuario tecnico = getUsuario(tecnicoId);
@@ -159,28 +187,31 @@ public class ChamadoService {
             throw new IllegalArgumentException("Destino não é um técnico.");
         }
         Chamado c = getChamado(chamadoId);
-        c.atribuirTecnico(tecnico, admin); // já registra evento e põe EM_ATENDIMENTO se estava ABERTO
+        var antes = rollup.estado(c);
+        UUID tecnicoAnterior = antes.tecnicoId();
+        c.atribuirTecnico(tecnico, ref(me)); // já registra evento e põe EM_ATENDIMENTO se estava ABERTO
+        rollup.aplicar(antes, rollup.estado(c));
+        comentarios.tecnicoAlterado(c.getId(), tecnico.getId());
 
         // Notifica o técnico designado
         var dto = NotificationDto.of(
                 NotificationType.CHAMADO_ATRIBUIDO,
                 "Você foi designado: " + c.getTitulo(),
-                toResponse(c)
+                toResponse(c, me)
         );
         notifications.sendToUser(tecnico.getId(), dto);
 
-        touch();
+        touch(c, tecnicoAnterior);
         return c;
     }
 
     /** Cancelar em vez de deletar: cliente cancela sob regras; ADMIN cancela sempre. */
     @Transactional
-    public Chamado cancelarChamado(UUID autorId, UUID chamadoId, String detalhe) {
-        Usuario autor = getUsuario(autorId);
+    public Chamado cancelarChamado(UsuarioPrincipal me, UUID chamadoId, String detalhe) {
         Chamado c = getChamado(chamadoId);
 
-        boolean isAdmin = autor.getRoles().contains(Role.ADMIN);
-        boolean isDono  = c.getSolicitante() != null && c.getSolicitante().getId().equals(autor.getId());
+        boolean isAdmin = me.hasRole(Role.ADMIN);
+        boolean isDono  = c.getSolicitante() != null && c.getSolicitante().getId().equals(me.id());
 
         if (!isAdmin && !isDono) throw new AccessDeniedException("Sem permissão para cancelar.");
 
@@ -191,28 +222,36 @@ public class ChamadoService {
                 throw new IllegalStateException("Chamado com técnico atribuído não pode ser cancelado pelo solicitante.");
         }
 
-        c.alterarStatus(StatusChamado.CANCELADO, autor, detalhe != null ? detalhe : "Cancelado.");
+        var antes = rollup.estado(c);
+        c.alterarStatus(StatusChamado.CANCELADO, ref(me), detalhe != null ? detalhe : "Cancelado.");
+        rollup.aplicar(antes, rollup.estado(c));
 
         // Notifica ADMIN e técnico responsável (se houver) e solicitante
         var dto = NotificationDto.of(
                 NotificationType.STATUS_ALTERADO,
                 "Chamado cancelado.",
-                toResponse(c)
+                toResponse(c, me)
         );
-        notifications.sendToRole(Role.ADMIN, dto);
-        if (c.getTecnicoResponsavel() != null) notifications.sendToUser(c.getTecnicoResponsavel().getId(), dto);
-        if (c.getSolicitante() != null) notifications.sendToUser(c.getSolicitante().getId(), dto);
+        notifications.send(dto, EnumSet.of(Role.ADMIN), envolvidos(c));
 
-        touch();
+        touch(c);
         return c;
     }
 
-    /** Listar em aberto e sem técnico (útil para técnico e admin). */
+    /** Fila em aberto e sem técnico (útil para técnico e admin): prioridade desc, mais antigos primeiro. */
     @Transactional(readOnly = true)
-    public List<Chamado> listarSemTecnicoEmAberto() {
-        return chamadoRepo.findAll().stream()
-                .filter(c -> c.getStatus() == StatusChamado.ABERTO && c.getTecnicoResponsavel() == null)
-                .toList();
+    public List<Chamado> listarSemTecnicoEmAberto(Integer max) {
+        return chamadoRepo.filaSemTecnico(limiteFila(max));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ChamadoSummary> resumoFilaSemTecnico(Integer max) {
+        return chamadoRepo.filaSemTecnicoSummary(limiteFila(max));
+    }
+
+    // sem max a fila vem inteira, como antes; o índice de prioridade serve os dois casos
+    private static Limit limiteFila(Integer max) {
+        return max == null ? Limit.unlimited() : Limit.of(pageSize(max));
     }
 
     /** Filtro por status para telas do ADMIN. */
@@ -241,35 +280,242 @@ public class ChamadoService {
         return chamadoRepo.findByStatus(StatusChamado.ABERTO);
     }
 
+    // ------- listagens por cursor (keyset em createdAt, id) -------
+
+    static final int PAGE_MAX = 200;
+
+    @Transactional(readOnly = true)
+    public CursorPage<Chamado> paginaTodos(String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.pageTodos(pos.createdAt(), pos.id(), Limit.of(n + 1)), n, ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Chamado> paginaMeusChamados(UUID solicitanteId, String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.pageBySolicitante(solicitanteId, pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Chamado> paginaPorTecnico(UUID tecnicoId, String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.pageByTecnico(tecnicoId, pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Chamado> paginaPorStatus(StatusChamado st, String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.pageByStatus(st, pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Chamado> paginaSemTecnicoEmAberto(String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.pageSemTecnico(pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    // ------- as mesmas páginas em ChamadoSummary (sem eventos, sem N+1) -------
+
+    @Transactional(readOnly = true)
+    public CursorPage<ChamadoSummary> resumoTodos(String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.summaryTodos(pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ChamadoSummary> resumoMeusChamados(UUID solicitanteId, String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.summaryBySolicitante(solicitanteId, pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ChamadoSummary> resumoPorTecnico(UUID tecnicoId, String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.summaryByTecnico(tecnicoId, pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ChamadoSummary> resumoPorStatus(StatusChamado st, String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.summaryByStatus(st, pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ChamadoSummary> resumoSemTecnicoEmAberto(String cursor, int limit) {
+        var pos = ChamadoCursor.decode(cursor);
+        int n = pageSize(limit);
+        return pagina(chamadoRepo.summarySemTecnico(pos.createdAt(), pos.id(), Limit.of(n + 1)), n,
+                ChamadoService::cursorOf);
+    }
+
+    // ------- feed de alterações (/changes?since=) -------
+
+    public long ultimaAlteracao() {
+        return chamadoRepo.ultimaAlteracao();
+    }
+
+    /**
+     * Chamados alterados e excluídos depois de {@code since}, até {@code limit} itens em ordem de seq.
+     * ADMIN/TECNICO veem todos; os demais, só os chamados de que são solicitantes.
+     */
+    @Transactional(readOnly = true)
+    public ChamadoChanges<Chamado> alteracoesDesde(UsuarioPrincipal me, long since, int limit) {
+        int n = pageSize(limit);
+        since = Math.max(0, since);
+        // tudo até "ate" já foi confirmado (o contador só avança no commit de quem o incrementou)
+        long ate = chamadoRepo.ultimaAlteracao();
+        boolean todos = me.hasRole(Role.ADMIN) || me.hasRole(Role.TECNICO);
+        List<Chamado> alterados = todos
+                ? chamadoRepo.alteradosDesde(since, ate, Limit.of(n + 1))
+                : chamadoRepo.alteradosDesdeDoSolicitante(me.id(), since, ate, Limit.of(n + 1));
+        List<ChamadoExclusao> excluidos = todos
+                ? exclusaoRepo.desde(since, ate, Limit.of(n + 1))
+                : exclusaoRepo.desdeDoSolicitante(me.id(), since, ate, Limit.of(n + 1));
+
+        // intercala as duas listas por seq e corta em n
+        var outAlterados = new ArrayList<Chamado>();
+        var outExcluidos = new ArrayList<UUID>();
+        int i = 0, j = 0;
+        long seq = since;
+        while (outAlterados.size() + outExcluidos.size() < n && (i < alterados.size() || j < excluidos.size())) {
+            boolean pegaAlterado = j == excluidos.size() || (i < alterados.size()
+                    && alterados.get(i).getAlteracaoSeq() < excluidos.get(j).getAlteracaoSeq());
+            if (pegaAlterado) {
+                seq = alterados.get(i).getAlteracaoSeq();
+                outAlterados.add(alterados.get(i++));
+            } else {
+                seq = excluidos.get(j).getAlteracaoSeq();
+                outExcluidos.add(excluidos.get(j++).getChamadoId());
+            }
+        }
+        boolean temMais = i < alterados.size() || j < excluidos.size();
+        return new ChamadoChanges<>(outAlterados, outExcluidos, temMais ? seq : ate, temMais);
+    }
+
+    // ------- ETags por escopo: calculados sem consulta, antes de listar -------
+
+    public String etagMeusChamados(UUID solicitanteId) { return versoes.etagSolicitante(solicitanteId); }
+
+    public String etagPorTecnico(UUID tecnicoId) { return versoes.etagTecnico(tecnicoId); }
+
+    public String etagEmAberto() { return versoes.etagGlobal("abertos"); }
+
+    public String etagDetalhe(UUID me, UUID chamadoId) { return versoes.etagChamado(chamadoId, me); }
+
+    /** Detalhe completo (com eventos): ADMIN/TECNICO ou o próprio solicitante. */
+    @Transactional(readOnly = true)
+    public Chamado detalhar(UsuarioPrincipal me, UUID chamadoId) {
+        Chamado c = chamadoRepo.findDetalhe(chamadoId)
+                .orElseThrow(() -> new NoSuchElementException("Chamado não encontrado"));
+        boolean isDono = c.getSolicitante() != null && c.getSolicitante().getId().equals(me.id());
+        if (!isDono && !me.hasRole(Role.ADMIN) && !me.hasRole(Role.TECNICO)) {
+            throw new AccessDeniedException("Sem permissão para ver este chamado.");
+        }
+        return c;
+    }
+
+    private static int pageSize(int limit) {
+        return Math.min(Math.max(1, limit), PAGE_MAX);
+    }
+
+    private static ChamadoCursor cursorOf(Chamado c) { return new ChamadoCursor(c.getCreatedAt(), c.getId()); }
+    private static ChamadoCursor cursorOf(ChamadoSummary c) { return new ChamadoCursor(c.createdAt(), c.id()); }
+
+    // a query traz n+1 linhas: se veio a extra, há próxima página a partir da n-ésima
+    private static <T> CursorPage<T> pagina(List<T> rows, int n, Function<T, ChamadoCursor> cursorOf) {
+        if (rows.size() <= n) return new CursorPage<>(rows, null);
+        var content = List.copyOf(rows.subList(0, n));
+        return new CursorPage<>(content, cursorOf.apply(content.get(n - 1)).encode());
+    }
+
     // ------- helpers -------
 
+    // técnico responsável e solicitante, quando houver
+    private static List<UUID> envolvidos(Chamado c) {
+        var ids = new ArrayList<UUID>(2);
+        if (c.getTecnicoResponsavel() != null) ids.add(c.getTecnicoResponsavel().getId());
+        if (c.getSolicitante() != null) ids.add(c.getSolicitante().getId());
+        return ids;
+    }
+
     private Usuario getUsuario(UUID id) {
         return usuarioRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Usuário não encontrado"));
     }
 
-    private Chamado getChamado(UUID id) {
-        return chamadoRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Chamado não encontrado"));
+    // referência (proxy) ao usuário logado: o filtro já validou que existe e está ativo
+    private Usuario ref(UsuarioPrincipal me) {
+        return usuarioRepo.getReferenceById(me.id());
     }
 
-    // --- utilitário local ---
-    private static String shortCode(UUID id) {
-        String hex = id.toString().replace("-", "");
-        return hex.substring(hex.length() - 6).toUpperCase();
+    private Chamado getChamado(UUID id) {
+        return chamadoRepo.findById(id).orElseThrow(() -> new NoSuchElementException("Chamado não encontrado"));
     }
 
-    /** Retorna {id, codigo} para um chamado específico. */
+    /** Retorna {id, codigo} para um chamado específico (coluna gerada, sem carregar o chamado). */
     @Transactional(readOnly = true)
     public ChamadoCodigoDto codigoDeChamado(UUID chamadoId) {
-        Chamado c = getChamado(chamadoId);
-        return new ChamadoCodigoDto(c.getId(), shortCode(c.getId()));
+        return chamadoRepo.findCodigo(chamadoId)
+                .orElseThrow(() -> new NoSuchElementException("Chamado não encontrado"));
     }
 
     /** Lista {id, codigo} para todos os chamados (use com parcimônia; deixei para ADMIN). */
     @Transactional(readOnly = true)
     public List<ChamadoCodigoDto> listarCodigosCurtos() {
-        return chamadoRepo.listShortCodes().stream()
-                .map(p -> new ChamadoCodigoDto(p.getId(), p.getCodigo().toUpperCase()))
-                .toList();
+        return chamadoRepo.pageCodigos(CODIGO_INICIO, Limit.unlimited());
+    }
+
+    /** Página de {id, codigo} em ordem de id; {@code cursor} é o {@code next} da página anterior. */
+    @Transactional(readOnly = true)
+    public CursorPage<ChamadoCodigoDto> paginaCodigos(String cursor, int limit) {
+        int n = pageSize(limit);
+        var rows = chamadoRepo.pageCodigos(codigoAfter(cursor), Limit.of(n + 1));
+        if (rows.size() <= n) return new CursorPage<>(rows, null);
+        var content = rows.subList(0, n);
+        return new CursorPage<>(List.copyOf(content), content.get(n - 1).id().toString());
+    }
+
+    /**
+     * Percorre todos os {id, codigo} em blocos de {@code chunk}, entregando cada bloco ao consumidor.
+     * Cada bloco é uma consulta curta, então nada fica todo em memória nem segura conexão.
+     */
+    public void exportarCodigos(int chunk, Consumer<List<ChamadoCodigoDto>> sink) {
+        UUID after = CODIGO_INICIO;
+        while (true) {
+            var rows = chamadoRepo.pageCodigos(after, Limit.of(chunk));
+            if (rows.isEmpty()) return;
+            sink.accept(rows);
+            if (rows.size() < chunk) return;
+            after = rows.get(rows.size() - 1).id();
+        }
+    }
+
+    // menor UUID na ordenação do PostgreSQL (comparação byte a byte)
+    private static final UUID CODIGO_INICIO = new UUID(0L, 0L);
+
+    private static UUID codigoAfter(String cursor) {
+        if (cursor == null || cursor.isBlank()) return CODIGO_INICIO;
+        try {
+            return UUID.fromString(cursor.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido.");
+        }
     }
 
     /** Busca chamados pelo código curto (6 hex). Pode haver colisões → retorna lista. */
@@ -282,13 +528,16 @@ public class ChamadoService {
         return chamadoRepo.findByShortCode(normalized);
     }
 
-    /** Copiado do Controller para permitir empurrar o chamado inteiro via SSE. */
-    private ChamadoResponse toResponse(Chamado c) {
+    /**
+     * Copiado do Controller para permitir empurrar o chamado inteiro via SSE. O nome de quem agiu
+     * vem do principal: a referência dele (getReferenceById) não é carregada só para isso.
+     */
+    private ChamadoResponse toResponse(Chamado c, UsuarioPrincipal me) {
         var eventos = c.getEventos().stream().map(ev -> new ChamadoEventoResponse(
                 ev.getId(),
                 ev.getQuando(),
                 ev.getTipo(),
-                ev.getAutor() != null ? ev.getAutor().getNome() : null,
+                nome(ev.getAutor(), me),
                 safeDetalhe(ev),
                 ev.getStatusAnterior(),
                 ev.getStatusNovo()
@@ -301,15 +550,21 @@ public class ChamadoService {
                 c.getStatus(),
                 c.getPrioridade(),
                 c.getSolicitante() != null ? c.getSolicitante().getId() : null,
-                c.getSolicitante() != null ? c.getSolicitante().getNome() : null,
+                nome(c.getSolicitante(), me),
                 c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getId() : null,
-                c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getNome() : null,
+                nome(c.getTecnicoResponsavel(), me),
                 c.getCreatedAt(),
                 c.getClosedAt(),
                 eventos
         );
     }
 
+    // getId() de um proxy não o inicializa; getNome() sim
+    private static String nome(Usuario u, UsuarioPrincipal me) {
+        if (u == null) return null;
+        return u.getId().equals(me.id()) ? me.nome() : u.getNome();
+    }
+
     private String safeDetalhe(ChamadoEvento ev) {
         try {
             Method m = ev.getClass().getMethod("getDetalhe");
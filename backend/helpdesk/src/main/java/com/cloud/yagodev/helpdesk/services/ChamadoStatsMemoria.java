@@ -0,0 +1,206 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.UsuarioLookup;
+import com.cloud.yagodev.helpdesk.dtos.stats.CountByDay;
+import com.cloud.yagodev.helpdesk.dtos.stats.CountByStatus;
+import com.cloud.yagodev.helpdesk.dtos.stats.CountByTech;
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.StatusChamado;
+import com.cloud.yagodev.helpdesk.repositories.ChamadoRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de chamados em memória para o modo {@code app.stats.modo=memoria}.
+ *
+ * <p>Os dias ficam em blocos de {@value #BLOCO} dias; cada bloco é um {@link AtomicLongArray}
+ * indexado por [dia][status][prioridade], e cada técnico (id denso) tem blocos [dia][status].
+ * Incrementos são {@code addAndGet} sem lock; as consultas somam as posições dos dias da faixa,
+ * sem SQL. A carga inicial é uma leitura em streaming de tb_chamado antes de o servidor aceitar
+ * requisições; depois disso o ChamadoRollupService repassa cada mudança após o commit. Neste
+ * modo tb_chamado_rollup_dia não é mantido nem reconstruído. Os contadores só veem as mudanças
+ * deste nó, por isso o modo não sobe com {@code app.notifications.modo=postgres}.</p>
+ */
+@Service
+public class ChamadoStatsMemoria implements SmartInitializingSingleton {
+
+    private static final int BLOCO = 512;
+    private static final StatusChamado[] STATUS = StatusChamado.values();
+    private static final int S = STATUS.length;
+    private static final int P = Prioridade.values().length;
+
+    private final ChamadoRepository repo;
+    private final TecnicoDirectory tecnicos;
+    private final TransactionTemplate tx;
+    private final boolean ativo;
+    private final ZoneId zone = ZoneId.systemDefault(); // mesma zona do ChamadoStatsService
+
+    // bloco → [dia][status][prioridade]
+    private final Map<Long, AtomicLongArray> dias = new ConcurrentHashMap<>();
+    // (técnico denso << 32 | bloco) → [dia][status]
+    private final Map<Long, AtomicLongArray> porTecnico = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> tecnicoIdx = new ConcurrentHashMap<>();
+    private final List<UUID> tecnicoIds = Collections.synchronizedList(new ArrayList<>());
+    // nomes vistos na carga (técnicos inativos não estão no TecnicoDirectory)
+    private final Map<UUID, String> nomesCarga = new ConcurrentHashMap<>();
+
+    private volatile boolean pronto;
+
+    public ChamadoStatsMemoria(ChamadoRepository repo,
+                               TecnicoDirectory tecnicos,
+                               PlatformTransactionManager txManager,
+                               @Value("${app.stats.modo:rollup}") String modo,
+                               @Value("${app.notifications.modo:local}") String modoNotificacoes) {
+        this.repo = repo;
+        this.tecnicos = tecnicos;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setReadOnly(true);
+        this.ativo = "memoria".equalsIgnoreCase(modo.trim());
+        if (ativo && "postgres".equalsIgnoreCase(modoNotificacoes.trim())) {
+            throw new IllegalStateException("app.stats.modo=memoria não funciona com "
+                    + "app.notifications.modo=postgres: os contadores não veriam chamados alterados em outros nós");
+        }
+    }
+
+    public boolean pronto() { return pronto; }
+
+    /** Modo memoria ligado: os contadores daqui substituem tb_chamado_rollup_dia. */
+    public boolean ativo() { return ativo; }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!ativo) return;
+        tx.executeWithoutResult(s -> {
+            try (var rows = repo.streamParaEstatisticas()) {
+                rows.forEach(r -> {
+                    if (r.getTecnicoId() != null && r.getTecnicoNome() != null) {
+                        nomesCarga.put(r.getTecnicoId(), r.getTecnicoNome());
+                    }
+                    somar(r.getCreatedAt().atZone(zone).toLocalDate(), r.getStatus(), r.getPrioridade(),
+                            r.getTecnicoId(), 1);
+                });
+            }
+        });
+        pronto = true;
+    }
+
+    /** Repassa a mudança do rollup depois do commit (nada muda se a transação for desfeita). */
+    public void aplicarAposCommit(ChamadoRollupService.Estado antes, ChamadoRollupService.Estado depois) {
+        if (!ativo) return;
+        Runnable r = () -> {
+            if (antes != null) somar(antes.dia(), antes.status(), antes.prioridade(), antes.tecnicoId(), -1);
+            if (depois != null) somar(depois.dia(), depois.status(), depois.prioridade(), depois.tecnicoId(), 1);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    private void somar(LocalDate dia, StatusChamado st, Prioridade pr, UUID tecnicoId, long delta) {
+        long d = dia.toEpochDay();
+        long bloco = Math.floorDiv(d, BLOCO);
+        int off = (int) Math.floorMod(d, BLOCO);
+        dias.computeIfAbsent(bloco, b -> new AtomicLongArray(BLOCO * S * P))
+                .addAndGet((off * S + st.ordinal()) * P + pr.ordinal(), delta);
+        if (tecnicoId != null) {
+            long chave = ((long) idx(tecnicoId) << 32) | (bloco & 0xffffffffL);
+            porTecnico.computeIfAbsent(chave, b -> new AtomicLongArray(BLOCO * S))
+                    .addAndGet(off * S + st.ordinal(), delta);
+        }
+    }
+
+    private int idx(UUID tecnicoId) {
+        Integer i = tecnicoIdx.get(tecnicoId);
+        if (i != null) return i;
+        synchronized (tecnicoIds) {
+            return tecnicoIdx.computeIfAbsent(tecnicoId, id -> {
+                tecnicoIds.add(id);
+                return tecnicoIds.size() - 1;
+            });
+        }
+    }
+
+    // ---------------- consultas (faixa inclusiva de dias) ----------------
+
+    public List<CountByStatus> totalsByStatus(LocalDate from, LocalDate to) {
+        long[] tot = new long[S];
+        percorrer(from, to, (d, arr, off) -> {
+            for (int s = 0; s < S; s++) {
+                int base = (off * S + s) * P;
+                for (int p = 0; p < P; p++) tot[s] += arr.get(base + p);
+            }
+        });
+        List<CountByStatus> out = new ArrayList<>();
+        for (int s = 0; s < S; s++) if (tot[s] > 0) out.add(new CountByStatus(STATUS[s], tot[s]));
+        return out;
+    }
+
+    public List<CountByDay> totalsPerDay(LocalDate from, LocalDate to) {
+        List<CountByDay> out = new ArrayList<>();
+        percorrer(from, to, (d, arr, off) -> {
+            int base = off * S * P;
+            long t = 0;
+            for (int i = 0; i < S * P; i++) t += arr.get(base + i);
+            if (t > 0) out.add(new CountByDay(LocalDate.ofEpochDay(d), t));
+        });
+        return out;
+    }
+
+    /** Técnicos com chamados nos status informados, do maior para o menor total. */
+    public List<CountByTech> totalsByTech(LocalDate from, LocalDate to, Set<StatusChamado> statuses) {
+        Map<UUID, String> nomes = new HashMap<>(nomesCarga);
+        for (UsuarioLookup t : tecnicos.snapshot().tecnicos()) nomes.put(t.id(), t.nome());
+
+        List<UUID> ids;
+        synchronized (tecnicoIds) { ids = List.copyOf(tecnicoIds); }
+        List<CountByTech> out = new ArrayList<>();
+        for (int t = 0; t < ids.size(); t++) {
+            long total = 0;
+            for (long d = from.toEpochDay(); d <= to.toEpochDay(); d++) {
+                long bloco = Math.floorDiv(d, BLOCO);
+                AtomicLongArray arr = porTecnico.get(((long) t << 32) | (bloco & 0xffffffffL));
+                if (arr == null) {
+                    d = (bloco + 1) * BLOCO - 1; // pula o bloco inteiro
+                    continue;
+                }
+                int base = (int) Math.floorMod(d, BLOCO) * S;
+                for (StatusChamado st : statuses) total += arr.get(base + st.ordinal());
+            }
+            if (total > 0) out.add(new CountByTech(ids.get(t), nomes.get(ids.get(t)), total));
+        }
+        out.sort(Comparator.comparingLong(CountByTech::total).reversed());
+        return out;
+    }
+
+    private interface Visitante { void dia(long epochDay, AtomicLongArray bloco, int off); }
+
+    private void percorrer(LocalDate from, LocalDate to, Visitante v) {
+        for (long d = from.toEpochDay(); d <= to.toEpochDay(); d++) {
+            long bloco = Math.floorDiv(d, BLOCO);
+            AtomicLongArray arr = dias.get(bloco);
+            if (arr == null) {
+                d = (bloco + 1) * BLOCO - 1;
+                continue;
+            }
+            v.dia(d, arr, (int) Math.floorMod(d, BLOCO));
+        }
+    }
+}
@@ -4,8 +4,12 @@ import com.cloud.yagodev.helpdesk.dtos.stats.CountByDay;
 import com.cloud.yagodev.helpdesk.dtos.stats.CountByMonth;
 import com.cloud.yagodev.helpdesk.dtos.stats.CountByStatus;
 import com.cloud.yagodev.helpdesk.dtos.stats.CountByTech;
+import com.cloud.yagodev.helpdesk.dtos.stats.DashboardRow;
+import com.cloud.yagodev.helpdesk.dtos.stats.DashboardStats;
 import com.cloud.yagodev.helpdesk.enums.StatusChamado;
 import com.cloud.yagodev.helpdesk.repositories.ChamadoRepository;
+import com.cloud.yagodev.helpdesk.repositories.ChamadoRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -13,16 +17,107 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Estatísticas do painel. Modo {@code rollup} (padrão) lê tb_chamado_rollup_dia, cujo custo depende
+ * do número de dias da faixa; modo {@code memoria} usa os contadores do {@link ChamadoStatsMemoria},
+ * sem SQL; modo {@code direto} agrega tb_chamado como antes.
+ *
+ * <p>Os resultados ficam em cache por (endpoint, from, to), versionados pelo
+ * {@link ChamadoVersionService}: qualquer mudança em chamado invalida tudo. As séries por dia/mês
+ * de faixas que já terminaram só mudam com exclusões, então usam a versão de exclusões e
+ * continuam válidas enquanto chamados são abertos e atendidos; as que trazem nomes de técnicos
+ * também dependem da geração do {@link TecnicoDirectory}. A mesma versão vira o ETag.</p>
+ */
 @Service
 public class ChamadoStatsService {
     private final ChamadoRepository repo;
+    private final ChamadoRollupRepository rollup;
+    private final ChamadoStatsMemoria memoria;
+    private final boolean usarRollup;
+    private final boolean usarMemoria;
+    private final ChamadoVersionService versoes;
+    private final TecnicoDirectory tecnicos;
+    private final int maxEntradas;
     private final ZoneId zone = ZoneId.systemDefault(); // ajuste se quiser UTC
 
-    public ChamadoStatsService(ChamadoRepository repo) {
+    private record Chave(String endpoint, LocalDate from, LocalDate to) {}
+    private record Entrada(String versao, Object valor) {}
+    private final Map<Chave, Entrada> cache = new ConcurrentHashMap<>();
+
+    public ChamadoStatsService(ChamadoRepository repo,
+                               ChamadoRollupRepository rollup,
+                               ChamadoStatsMemoria memoria,
+                               ChamadoVersionService versoes,
+                               TecnicoDirectory tecnicos,
+                               @Value("${app.stats.modo:rollup}") String modo,
+                               @Value("${app.stats.cache.max-entradas:256}") int maxEntradas) {
         this.repo = repo;
+        this.rollup = rollup;
+        this.memoria = memoria;
+        this.versoes = versoes;
+        this.tecnicos = tecnicos;
+        this.maxEntradas = maxEntradas;
+        this.usarRollup = "rollup".equalsIgnoreCase(modo.trim());
+        this.usarMemoria = "memoria".equalsIgnoreCase(modo.trim());
+    }
+
+    // ---------------- cache / ETag ----------------
+
+    /** ETag do resultado de {@code endpoint} para a faixa; calcule antes do corpo. */
+    public String etag(String endpoint, LocalDate from, LocalDate to) {
+        return "\"" + endpoint + "-" + from + "-" + to + "-" + zone.getId() + "-" + versao(endpoint, to) + "\"";
+    }
+
+    private String versao(String endpoint, LocalDate to) {
+        // faixa encerrada até anteontem: a folga cobre transação aberta na virada do dia
+        boolean serie = endpoint.equals("por-dia") || endpoint.equals("por-mes");
+        if (serie && to.plusDays(1).isBefore(LocalDate.now(zone))) return "x" + versoes.exclusoes();
+        // nomes de técnicos vêm junto: renomear um usuário também invalida
+        boolean nomes = endpoint.equals("tecnicos-ativos") || endpoint.equals("dashboard");
+        if (nomes) return "v" + versoes.versao() + "." + tecnicos.geracao();
+        return "v" + versoes.versao();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String endpoint, LocalDate from, LocalDate to, Supplier<T> calcular) {
+        if (maxEntradas <= 0) return calcular.get();
+        var chave = new Chave(endpoint, from, to);
+        // versão lida antes de calcular: se algo mudar no meio, a entrada já nasce vencida
+        String v = versao(endpoint, to);
+        Entrada e = cache.get(chave);
+        if (e != null && e.versao().equals(v)) return (T) e.valor();
+        T valor = calcular.get();
+        if (cache.size() >= maxEntradas) cache.clear();
+        cache.put(chave, new Entrada(v, valor));
+        return valor;
+    }
+
+    public List<CountByStatus> totalsByStatus(LocalDate from, LocalDate to) {
+        return cached("status", from, to, () -> calcularPorStatus(from, to));
+    }
+
+    public List<CountByTech> totalsByTechActive(LocalDate from, LocalDate to) {
+        return cached("tecnicos-ativos", from, to, () -> calcularPorTecnico(from, to));
+    }
+
+    public List<CountByDay> totalsPerDay(LocalDate from, LocalDate to) {
+        return cached("por-dia", from, to, () -> calcularPorDia(from, to));
+    }
+
+    public List<CountByMonth> totalsPerMonth(LocalDate from, LocalDate to) {
+        return cached("por-mes", from, to, () -> calcularPorMes(from, to));
+    }
+
+    public DashboardStats dashboard(LocalDate from, LocalDate to) {
+        return cached("dashboard", from, to, () -> calcularDashboard(from, to));
     }
 
     // Helpers para converter LocalDate -> Intervalo Instant [start, end)
@@ -33,19 +128,27 @@ public class ChamadoStatsService {
         return new Range(start, end);
     }
 
-    public List<CountByStatus> totalsByStatus(LocalDate from, LocalDate to) {
+    // ---------------- cálculo ----------------
+
+    private List<CountByStatus> calcularPorStatus(LocalDate from, LocalDate to) {
+        if (usarMemoria && memoria.pronto()) return memoria.totalsByStatus(from, to);
+        if (usarRollup) return rollup.countByStatus(from, to);
         var r = toRange(from, to);
         return repo.countByStatus(r.start, r.end);
     }
 
-    public List<CountByTech> totalsByTechActive(LocalDate from, LocalDate to) {
-        var r = toRange(from, to);
+    private List<CountByTech> calcularPorTecnico(LocalDate from, LocalDate to) {
         var statuses = new ArrayList<StatusChamado>(EnumSet.of(
                 StatusChamado.ABERTO, StatusChamado.EM_ATENDIMENTO));
+        if (usarMemoria && memoria.pronto()) return memoria.totalsByTech(from, to, EnumSet.copyOf(statuses));
+        if (usarRollup) return rollup.countByTechAndStatusIn(from, to, statuses);
+        var r = toRange(from, to);
         return repo.countByTechAndStatusIn(r.start, r.end, statuses);
     }
 
-    public List<CountByDay> totalsPerDay(LocalDate from, LocalDate to) {
+    private List<CountByDay> calcularPorDia(LocalDate from, LocalDate to) {
+        if (usarMemoria && memoria.pronto()) return memoria.totalsPerDay(from, to);
+        if (usarRollup) return rollup.countPerDay(from, to);
         var r = toRange(from, to);
         return repo.countPerDay(r.start, r.end).stream()
                 .map(tb -> new CountByDay(LocalDateTime.ofInstant(tb.getBucket(), zone).toLocalDate(),
@@ -53,13 +156,65 @@ public class ChamadoStatsService {
                 .toList();
     }
 
-    public List<CountByMonth> totalsPerMonth(LocalDate from, LocalDate to) {
+    private List<CountByMonth> calcularPorMes(LocalDate from, LocalDate to) {
+        if (usarRollup || (usarMemoria && memoria.pronto())) {
+            // soma os dias em meses (no máximo um item por dia da faixa)
+            var porMes = new LinkedHashMap<String, Long>();
+            for (var d : calcularPorDia(from, to)) {
+                porMes.merge(yearMonth(d.day()), d.total(), Long::sum);
+            }
+            return porMes.entrySet().stream().map(e -> new CountByMonth(e.getKey(), e.getValue())).toList();
+        }
         var r = toRange(from, to);
         return repo.countPerMonth(r.start, r.end).stream()
                 .map(tb -> {
                     var ld = LocalDateTime.ofInstant(tb.getBucket(), zone).toLocalDate();
-                    return new CountByMonth(ld.getYear() + "-" + String.format("%02d", ld.getMonthValue()), tb.getTotal());
+                    return new CountByMonth(yearMonth(ld), tb.getTotal());
                 })
                 .toList();
     }
+
+    /** Os quatro agregados do painel: uma consulta (rollup/direto) ou nenhuma (memoria). */
+    private DashboardStats calcularDashboard(LocalDate from, LocalDate to) {
+        if (usarMemoria && memoria.pronto()) {
+            return new DashboardStats(calcularPorStatus(from, to), calcularPorTecnico(from, to),
+                    calcularPorDia(from, to), calcularPorMes(from, to));
+        }
+        List<DashboardRow> rows;
+        if (usarRollup) {
+            rows = rollup.dashboard(from, to);
+        } else {
+            var r = toRange(from, to);
+            rows = repo.dashboard(r.start, r.end, zone.getId());
+        }
+
+        var status = new ArrayList<CountByStatus>();
+        var tecnicos = new ArrayList<CountByTech>();
+        var dias = new ArrayList<CountByDay>();
+        var meses = new ArrayList<CountByMonth>();
+        for (var row : rows) {
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            switch (row.getGrupo()) {
+                case "S" -> { if (total > 0) status.add(new CountByStatus(StatusChamado.valueOf(row.getStatus()), total)); }
+                case "T" -> {
+                    long ativos = row.getTotalAtivos() != null ? row.getTotalAtivos() : 0;
+                    // sem técnico: null (direto) ou UUID zero (rollup), que não casa com tb_usuario
+                    if (row.getTecnicoNome() != null && ativos > 0) {
+                        tecnicos.add(new CountByTech(row.getTecnicoId(), row.getTecnicoNome(), ativos));
+                    }
+                }
+                case "D" -> { if (total > 0) dias.add(new CountByDay(LocalDate.parse(row.getDia()), total)); }
+                default -> { if (total > 0) meses.add(new CountByMonth(row.getMes(), total)); }
+            }
+        }
+        status.sort(Comparator.comparing(CountByStatus::status));
+        tecnicos.sort(Comparator.comparingLong(CountByTech::total).reversed());
+        dias.sort(Comparator.comparing(CountByDay::day));
+        meses.sort(Comparator.comparing(CountByMonth::yearMonth));
+        return new DashboardStats(status, tecnicos, dias, meses);
+    }
+
+    private static String yearMonth(LocalDate d) {
+        return d.getYear() + "-" + String.format("%02d", d.getMonthValue());
+    }
 }
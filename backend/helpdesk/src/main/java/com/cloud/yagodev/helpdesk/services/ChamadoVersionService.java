@@ -0,0 +1,162 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.entities.Chamado;
+import com.cloud.yagodev.helpdesk.services.PgNotificationBus.Invalidacao;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Marca d'água das mudanças em chamados (antes um AtomicLong dentro do ChamadoService).
+ *
+ * <p>{@link #versao()} é um contador usado para versionar caches e ETags; {@link #lastUpdate()}
+ * continua sendo o timestamp exposto no /ping. Dentro de transação o avanço é repetido no
+ * afterCompletion, depois de todos os afterCommit, para que nada calculado entre a mudança e
+ * o commit fique valendo para a versão nova.</p>
+ *
+ * <p>Além da versão global, cada mudança marca os escopos afetados (o chamado, o solicitante e os
+ * técnicos de antes e depois) com o valor do contador, para ETags por lista/detalhe. Escopo nunca
+ * alterado desde a subida responde o piso; o {@link #epoca} no ETag separa reinícios.</p>
+ *
+ * <p>Os contadores são deste nó. Com {@code app.notifications.modo=postgres} cada avanço também
+ * vai pelo {@link PgNotificationBus} e os outros nós avançam os mesmos escopos ao receber, para
+ * não responderem 304 com uma lista que mudou em outro nó.</p>
+ */
+@Service
+public class ChamadoVersionService {
+
+    private static final int MAX_ESCOPOS = 50_000;
+
+    private final AtomicLong versao = new AtomicLong();
+    private final AtomicLong exclusoes = new AtomicLong();
+    private final AtomicLong lastUpdate = new AtomicLong(System.currentTimeMillis());
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Escopos porChamado = new Escopos();
+    private final Escopos porSolicitante = new Escopos();
+    private final Escopos porTecnico = new Escopos();
+
+    private final TecnicoDirectory usuarios;
+    private final PgNotificationBus bus;
+
+    public ChamadoVersionService(TecnicoDirectory usuarios, PgNotificationBus bus) {
+        this.usuarios = usuarios;
+        this.bus = bus;
+        bus.aoInvalidar(this::aoInvalidar);
+    }
+
+    public long versao() { return versao.get(); }
+
+    /** Só muda quando chamados são excluídos (ou o rollup é reconstruído). */
+    public long exclusoes() { return exclusoes.get(); }
+
+    public long lastUpdate() { return lastUpdate.get(); }
+
+    /** Chamado criado ou alterado; {@code tecnicoAnterior} é o responsável antes da mudança. */
+    public void alterado(Chamado c, UUID tecnicoAnterior) {
+        avancar(false, c, tecnicoAnterior);
+    }
+
+    public void excluido(Chamado c) {
+        avancar(true, c, null);
+    }
+
+    /** Contadores recalculados por fora (rollup): invalida inclusive as séries já encerradas. */
+    public void estatisticasRecalculadas() {
+        avancar(true, null, null);
+    }
+
+    // ---------------- ETags ----------------
+
+    public String etagChamado(UUID chamadoId, UUID leitor) {
+        return etag("c-" + chamadoId + "-" + leitor, porChamado.get(chamadoId));
+    }
+
+    public String etagSolicitante(UUID solicitanteId) {
+        return etag("s-" + solicitanteId, porSolicitante.get(solicitanteId));
+    }
+
+    public String etagTecnico(UUID tecnicoId) {
+        return etag("t-" + tecnicoId, porTecnico.get(tecnicoId));
+    }
+
+    public String etagGlobal(String escopo) {
+        return etag(escopo, versao.get());
+    }
+
+    // nomes de usuários vão nas respostas: a geração do TecnicoDirectory muda a cada alteração de usuário
+    private String etag(String escopo, long v) {
+        return "W/\"" + escopo + "-" + epoca + "-" + v + "." + usuarios.geracao() + "\"";
+    }
+
+    // ---------------- avanço ----------------
+
+    private void avancar(boolean exclusao, Chamado c, UUID tecnicoAnterior) {
+        // ids capturados agora: depois do commit a entidade pode estar desanexada ou removida
+        UUID chamadoId = c != null ? c.getId() : null;
+        UUID solicitanteId = c != null && c.getSolicitante() != null ? c.getSolicitante().getId() : null;
+        UUID tecnicoId = c != null && c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getId() : null;
+        Runnable bump = () -> marcar(exclusao, chamadoId, solicitanteId, tecnicoAnterior, tecnicoId);
+        bump.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) bump.run();
+                }
+            });
+        }
+        var tipo = c == null ? Invalidacao.Tipo.ESTATISTICAS
+                : exclusao ? Invalidacao.Tipo.CHAMADO_EXCLUIDO : Invalidacao.Tipo.CHAMADO;
+        bus.invalidar(new Invalidacao(tipo, chamadoId, solicitanteId, tecnicoAnterior, tecnicoId));
+    }
+
+    // mudança gravada por outro nó: já commitada, basta um avanço
+    private void aoInvalidar(Invalidacao i) {
+        switch (i.tipo()) {
+            case CHAMADO -> marcar(false, i.id(), i.solicitante(), i.tecnicoAnterior(), i.tecnico());
+            case CHAMADO_EXCLUIDO -> marcar(true, i.id(), i.solicitante(), i.tecnicoAnterior(), i.tecnico());
+            case ESTATISTICAS -> marcar(true, null, null, null, null);
+            default -> { }
+        }
+    }
+
+    private void marcar(boolean exclusao, UUID chamadoId, UUID solicitanteId, UUID tecnicoAnterior, UUID tecnicoId) {
+        if (exclusao) exclusoes.incrementAndGet();
+        long v = versao.incrementAndGet();
+        porChamado.marcar(chamadoId, v);
+        porSolicitante.marcar(solicitanteId, v);
+        porTecnico.marcar(tecnicoAnterior, v);
+        porTecnico.marcar(tecnicoId, v);
+        lastUpdate.set(System.currentTimeMillis());
+    }
+
+    /** Versão por id; ao lotar, esquece tudo e sobe o piso para a versão global (invalida todos). */
+    private final class Escopos {
+        private final Map<UUID, Long> mapa = new ConcurrentHashMap<>();
+        private volatile long piso;
+
+        long get(UUID id) {
+            Long v = mapa.get(id);
+            return v != null ? v : piso;
+        }
+
+        void marcar(UUID id, long v) {
+            if (id == null) return;
+            if (mapa.size() >= MAX_ESCOPOS) {
+                synchronized (this) {
+                    if (mapa.size() >= MAX_ESCOPOS) {
+                        piso = versao.get();
+                        mapa.clear();
+                    }
+                }
+            }
+            mapa.merge(id, v, Math::max);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
+import com.cloud.yagodev.helpdesk.entities.Chamado;
+import com.cloud.yagodev.helpdesk.entities.ChamadoEvento;
+import com.cloud.yagodev.helpdesk.repositories.ChamadoEventoRepository;
+import com.cloud.yagodev.helpdesk.repositories.ComentarioIndexRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Mantém o {@link ComentarioInvertedIndex} quando a busca de comentários está no modo
+ * {@code memoria}: carrega tb_chamado_evento em segundo plano ao subir a aplicação e aplica
+ * as mudanças do ChamadoService/UsuarioService depois do commit. Nos outros modos não faz nada.
+ * O índice só vê as mudanças deste nó, por isso não sobe com {@code app.notifications.modo=postgres}.
+ */
+@Service
+public class ComentarioIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(ComentarioIndexService.class);
+    private static final int LOTE = 5000;
+
+    private final ChamadoEventoRepository eventosRepo;
+    private final boolean ativo;
+    private final ComentarioInvertedIndex index = new ComentarioInvertedIndex();
+
+    // mudanças que chegam durante a carga inicial; aplicadas ao final (add é idempotente)
+    private final List<Consumer<ComentarioInvertedIndex>> pendentes = new ArrayList<>();
+    private volatile boolean pronto;
+    private volatile boolean falhou;
+
+    public ComentarioIndexService(ChamadoEventoRepository eventosRepo,
+                                  MeterRegistry meters,
+                                  @Value("${app.search.comentarios.modo:fts}") String modo,
+                                  @Value("${app.notifications.modo:local}") String modoNotificacoes) {
+        this.eventosRepo = eventosRepo;
+        this.ativo = "memoria".equalsIgnoreCase(modo.trim());
+        if (ativo && "postgres".equalsIgnoreCase(modoNotificacoes.trim())) {
+            throw new IllegalStateException("app.search.comentarios.modo=memoria não funciona com "
+                    + "app.notifications.modo=postgres: o índice não veria comentários gravados em outros nós");
+        }
+        Gauge.builder("helpdesk.search.comentarios.index.size", index, ComentarioInvertedIndex::size).register(meters);
+    }
+
+    public boolean pronto() { return pronto; }
+
+    public ComentarioInvertedIndex index() { return index; }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        if (!ativo) return;
+        Thread.ofVirtual().name("comentario-index-load").start(() -> {
+            try {
+                long t0 = System.currentTimeMillis();
+                Instant quando = Instant.EPOCH;
+                UUID id = new UUID(0L, 0L);
+                while (true) {
+                    List<ComentarioIndexRow> rows = eventosRepo.pageComentariosParaIndice(quando, id, Limit.of(LOTE));
+                    for (var r : rows) {
+                        index.add(new ComentarioInvertedIndex.Comentario(r.getEventoId(), r.getQuando(), r.getDetalhe(),
+                                r.getChamadoId(), r.getChamadoTitulo(), r.getSolicitanteId(), r.getTecnicoId(),
+                                r.getAutorId(), r.getAutorNome()));
+                    }
+                    if (rows.size() < LOTE) break;
+                    var last = rows.get(rows.size() - 1);
+                    quando = last.getQuando();
+                    id = last.getEventoId();
+                }
+                synchronized (pendentes) {
+                    pendentes.forEach(op -> op.accept(index));
+                    pendentes.clear();
+                    pronto = true;
+                }
+                log.info("Índice de comentários carregado: {} comentários em {} ms",
+                        index.size(), System.currentTimeMillis() - t0);
+            } catch (RuntimeException e) {
+                synchronized (pendentes) {
+                    falhou = true;
+                    pendentes.clear();
+                }
+                log.error("Falha ao carregar o índice de comentários; buscas seguem no banco", e);
+            }
+        });
+    }
+
+    /** Indexa o comentário depois do commit (o id do evento só existe após o flush). */
+    public void comentarioCriado(ChamadoEvento ev, Chamado c, UsuarioPrincipal autor) {
+        if (!ativo) return;
+        aposCommit(() -> {
+            UUID tecnicoId = c.getTecnicoResponsavel() != null ? c.getTecnicoResponsavel().getId() : null;
+            // mesma precisão que o PostgreSQL grava (microssegundos)
+            var quando = ev.getQuando().truncatedTo(ChronoUnit.MICROS);
+            var doc = new ComentarioInvertedIndex.Comentario(ev.getId(), quando, ev.getDetallhe(),
+                    c.getId(), c.getTitulo(), c.getSolicitante().getId(), tecnicoId, autor.id(), autor.nome());
+            aplicar(ix -> ix.add(doc));
+        });
+    }
+
+    public void tecnicoAlterado(UUID chamadoId, UUID tecnicoId) {
+        if (!ativo) return;
+        aposCommit(() -> aplicar(ix -> ix.alterarTecnico(chamadoId, tecnicoId)));
+    }
+
+    public void chamadoExcluido(UUID chamadoId) {
+        if (!ativo) return;
+        aposCommit(() -> aplicar(ix -> ix.removerChamado(chamadoId)));
+    }
+
+    public void autorRenomeado(UUID autorId, String nome) {
+        if (!ativo) return;
+        aposCommit(() -> aplicar(ix -> ix.renomearAutor(autorId, nome)));
+    }
+
+    private void aplicar(Consumer<ComentarioInvertedIndex> op) {
+        if (!pronto) {
+            synchronized (pendentes) {
+                if (falhou) return;
+                if (!pronto) {
+                    pendentes.add(op);
+                    return;
+                }
+            }
+        }
+        op.accept(index);
+    }
+
+    private static void aposCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
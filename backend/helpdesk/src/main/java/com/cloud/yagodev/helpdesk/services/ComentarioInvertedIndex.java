@@ -0,0 +1,293 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.ComentarioSearchResponse;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória dos comentários (termo → docIds).
+ *
+ * <p>Cada comentário recebe um docId sequencial; como os ids só crescem, toda posting list
+ * é um {@code int[]} ordenado e as buscas são interseções lineares. O escopo por papel
+ * (solicitante/técnico) também é uma posting list, interseccionada com a dos termos.
+ * Exclusões só marcam o docId em {@link #removidos}.</p>
+ *
+ * <p>Thread-safe: leituras em paralelo, escritas exclusivas.</p>
+ */
+public final class ComentarioInvertedIndex {
+
+    public enum Escopo { TODOS, SOLICITANTE, TECNICO }
+
+    /** Comentário a indexar, com o que a resposta da busca precisa. */
+    public record Comentario(UUID eventoId, Instant quando, String detalhe,
+                             UUID chamadoId, String chamadoTitulo, UUID solicitanteId, UUID tecnicoId,
+                             UUID autorId, String autorNome) {}
+
+    public record Resultado(List<ComentarioSearchResponse> content, long total) {}
+
+    private record Doc(UUID eventoId, Instant quando, String detalhe, int chamado, int autor) {}
+
+    private static final class ChamadoInfo {
+        final UUID id;
+        final String titulo;
+        final UUID solicitanteId;
+        UUID tecnicoId;
+        final IntList docs = new IntList();
+
+        ChamadoInfo(UUID id, String titulo, UUID solicitanteId, UUID tecnicoId) {
+            this.id = id; this.titulo = titulo; this.solicitanteId = solicitanteId; this.tecnicoId = tecnicoId;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<UUID, Integer> docPorEvento = new HashMap<>();
+    private final BitSet removidos = new BitSet();
+
+    private final List<ChamadoInfo> chamados = new ArrayList<>();
+    private final Map<UUID, Integer> chamadoIdx = new HashMap<>();
+
+    private final List<UUID> autorIds = new ArrayList<>();
+    private final List<String> autorNomes = new ArrayList<>();
+    private final Map<UUID, Integer> autorIdx = new HashMap<>();
+
+    // TreeMap para permitir busca por prefixo no último termo
+    private final NavigableMap<String, IntList> termos = new TreeMap<>();
+    private final Map<UUID, IntList> porSolicitante = new HashMap<>();
+    private final Map<UUID, IntList> porTecnico = new HashMap<>();
+
+    /** Indexa um comentário; ignora se o evento já estiver no índice. */
+    public void add(Comentario c) {
+        var tokens = new LinkedHashSet<>(tokens(c.detalhe()));
+        lock.writeLock().lock();
+        try {
+            if (docPorEvento.containsKey(c.eventoId())) return;
+            int ci = chamadoIdx.computeIfAbsent(c.chamadoId(), id -> {
+                chamados.add(new ChamadoInfo(id, c.chamadoTitulo(), c.solicitanteId(), c.tecnicoId()));
+                return chamados.size() - 1;
+            });
+            int ai = autorIdx.computeIfAbsent(c.autorId(), id -> {
+                autorIds.add(id);
+                autorNomes.add(c.autorNome());
+                return autorIds.size() - 1;
+            });
+
+            int doc = docs.size();
+            docs.add(new Doc(c.eventoId(), c.quando(), c.detalhe(), ci, ai));
+            docPorEvento.put(c.eventoId(), doc);
+
+            ChamadoInfo info = chamados.get(ci);
+            info.docs.add(doc);
+            if (info.solicitanteId != null) porSolicitante.computeIfAbsent(info.solicitanteId, k -> new IntList()).add(doc);
+            if (info.tecnicoId != null) porTecnico.computeIfAbsent(info.tecnicoId, k -> new IntList()).add(doc);
+            for (String t : tokens) termos.computeIfAbsent(t, k -> new IntList()).add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Move os comentários do chamado para a posting list do novo técnico (null = sem técnico). */
+    public void alterarTecnico(UUID chamadoId, UUID tecnicoId) {
+        lock.writeLock().lock();
+        try {
+            Integer ci = chamadoIdx.get(chamadoId);
+            if (ci == null) return;
+            ChamadoInfo info = chamados.get(ci);
+            if (Objects.equals(info.tecnicoId, tecnicoId)) return;
+            int[] ids = info.docs.toArray();
+            if (info.tecnicoId != null) {
+                IntList antigo = porTecnico.get(info.tecnicoId);
+                if (antigo != null) antigo.removeSorted(ids);
+            }
+            if (tecnicoId != null) porTecnico.computeIfAbsent(tecnicoId, k -> new IntList()).mergeSorted(ids);
+            info.tecnicoId = tecnicoId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Chamado excluído: seus comentários deixam de aparecer nas buscas. */
+    public void removerChamado(UUID chamadoId) {
+        lock.writeLock().lock();
+        try {
+            Integer ci = chamadoIdx.remove(chamadoId);
+            if (ci == null) return;
+            for (int doc : chamados.get(ci).docs.toArray()) {
+                removidos.set(doc);
+                docPorEvento.remove(docs.get(doc).eventoId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void renomearAutor(UUID autorId, String nome) {
+        lock.writeLock().lock();
+        try {
+            Integer ai = autorIdx.get(autorId);
+            if (ai != null) autorNomes.set(ai, nome);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Comentários que contêm todos os termos de {@code q} (o último também por prefixo),
+     * dentro do escopo, do mais recente para o mais antigo.
+     */
+    public Resultado buscar(String q, Escopo escopo, UUID userId, int offset, int limit) {
+        List<String> qs = tokens(q);
+        if (qs.isEmpty()) return new Resultado(List.of(), 0);
+
+        lock.readLock().lock();
+        try {
+            List<int[]> listas = new ArrayList<>(qs.size() + 1);
+            for (int i = 0; i < qs.size(); i++) {
+                int[] p = (i == qs.size() - 1) ? prefixo(qs.get(i)) : exato(qs.get(i));
+                if (p.length == 0) return new Resultado(List.of(), 0);
+                listas.add(p);
+            }
+            if (escopo != Escopo.TODOS) {
+                IntList s = (escopo == Escopo.TECNICO ? porTecnico : porSolicitante).get(userId);
+                if (s == null || s.size() == 0) return new Resultado(List.of(), 0);
+                listas.add(s.toArray());
+            }
+            // interseção começando pela menor lista
+            listas.sort(Comparator.comparingInt(a -> a.length));
+            int[] acc = listas.get(0);
+            for (int i = 1; i < listas.size() && acc.length > 0; i++) acc = intersect(acc, listas.get(i));
+
+            long total = 0;
+            List<ComentarioSearchResponse> content = new ArrayList<>(Math.min(limit, acc.length));
+            for (int i = acc.length - 1; i >= 0; i--) {
+                int doc = acc[i];
+                if (removidos.get(doc)) continue;
+                if (total >= offset && content.size() < limit) content.add(toResponse(docs.get(doc)));
+                total++;
+            }
+            return new Resultado(content, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size() - removidos.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ComentarioSearchResponse toResponse(Doc d) {
+        ChamadoInfo c = chamados.get(d.chamado());
+        return new ComentarioSearchResponse(d.eventoId(), d.quando(), d.detalhe(),
+                c.id, c.titulo, autorIds.get(d.autor()), autorNomes.get(d.autor()));
+    }
+
+    private int[] exato(String termo) {
+        IntList p = termos.get(termo);
+        return p == null ? new int[0] : p.toArray();
+    }
+
+    private int[] prefixo(String termo) {
+        var faixa = termos.subMap(termo, true, termo + Character.MAX_VALUE, false);
+        if (faixa.isEmpty()) return new int[0];
+        if (faixa.size() == 1) return faixa.firstEntry().getValue().toArray();
+        BitSet u = new BitSet();
+        for (IntList p : faixa.values()) p.forEach(u::set);
+        return u.stream().toArray();
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // ------------------------------------------------------------------
+    // Analisador: minúsculas, sem acento, sem stopwords, plural simples
+    // ------------------------------------------------------------------
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADOR = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "ao", "aos", "as", "com", "como", "da", "das", "de", "do", "dos", "e", "ela", "ele",
+            "em", "entre", "era", "esta", "este", "eu", "foi", "ha", "isso", "ja", "lhe", "mais", "mas",
+            "me", "mesmo", "na", "nao", "nas", "nem", "no", "nos", "o", "os", "ou", "para", "pela",
+            "pelo", "por", "que", "se", "sem", "ser", "seu", "sua", "tem", "um", "uma", "voce");
+
+    /** Quebra o texto nos mesmos termos usados no índice. */
+    static List<String> tokens(String texto) {
+        if (texto == null || texto.isBlank()) return List.of();
+        String norm = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        for (String t : SEPARADOR.split(norm)) {
+            if (t.length() < 2 || STOPWORDS.contains(t)) continue;
+            out.add(singular(t));
+        }
+        return out;
+    }
+
+    // "impressoras" → "impressora", "conexoes" → "conexao", "itens" → "item"
+    private static String singular(String t) {
+        if (t.length() <= 3 || !t.endsWith("s")) return t;
+        if (t.endsWith("oes") || t.endsWith("aes")) return t.substring(0, t.length() - 3) + "ao";
+        if (t.endsWith("ns")) return t.substring(0, t.length() - 2) + "m";
+        return t.substring(0, t.length() - 1);
+    }
+
+    // ------------------------------------------------------------------
+
+    /** Lista de int crescente, sem boxing. */
+    private static final class IntList {
+        private int[] a = new int[4];
+        private int n;
+
+        void add(int v) {
+            if (n == a.length) a = Arrays.copyOf(a, Math.max(4, n * 2));
+            a[n++] = v;
+        }
+
+        int size() { return n; }
+
+        int[] toArray() { return Arrays.copyOf(a, n); }
+
+        void forEach(java.util.function.IntConsumer f) { for (int i = 0; i < n; i++) f.accept(a[i]); }
+
+        void removeSorted(int[] ids) {
+            int w = 0, j = 0;
+            for (int i = 0; i < n; i++) {
+                while (j < ids.length && ids[j] < a[i]) j++;
+                if (j < ids.length && ids[j] == a[i]) continue;
+                a[w++] = a[i];
+            }
+            n = w;
+        }
+
+        void mergeSorted(int[] ids) {
+            int[] out = new int[n + ids.length];
+            int i = 0, j = 0, w = 0;
+            while (i < n || j < ids.length) {
+                if (j == ids.length || (i < n && a[i] < ids[j])) out[w++] = a[i++];
+                else if (i == n || ids[j] < a[i]) out[w++] = ids[j++];
+                else { out[w++] = a[i++]; j++; }
+            }
+            a = out;
+            n = w;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.ComentarioSearchResponse;
+import com.cloud.yagodev.helpdesk.dtos.PageResult;
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
+import com.cloud.yagodev.helpdesk.enums.Role;
+import com.cloud.yagodev.helpdesk.repositories.ChamadoEventoRepository;
+import com.cloud.yagodev.helpdesk.repositories.ComentarioSearchRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Busca em comentários, escopada pelo papel do usuário (ADMIN: todos; TECNICO: chamados
+ * sob sua responsabilidade; USUARIO_COMUM: seus chamados).
+ *
+ * <p>Modo {@code fts} (padrão): full-text em português sobre {@code detalhe_tsv} (índice GIN),
+ * ordenado por relevância, com total limitado a {@code count-cap}. Modo {@code like}: a busca
+ * por substring original, mantida para comparação/rollback. Modo {@code memoria}: índice invertido
+ * em memória ({@link ComentarioIndexService}), sem ir ao banco; até a carga terminar usa o fts.</p>
+ */
+@Service
+public class ComentarioSearchService {
+
+    private final ChamadoEventoRepository eventosRepo;
+    private final ComentarioIndexService memoria;
+    private final String modo;
+    private final int countCap;
+
+    public ComentarioSearchService(ChamadoEventoRepository eventosRepo,
+                                   ComentarioIndexService memoria,
+                                   @Value("${app.search.comentarios.modo:fts}") String modo,
+                                   @Value("${app.search.comentarios.count-cap:1000}") int countCap) {
+        this.eventosRepo = eventosRepo;
+        this.memoria = memoria;
+        this.modo = modo.trim().toLowerCase();
+        this.countCap = countCap;
+    }
+
+    @Transactional(readOnly = true)
+    public PageResult<ComentarioSearchResponse> buscar(UsuarioPrincipal user, String q, int page, int size) {
+        int p = Math.max(0, page);
+        int n = Math.min(Math.max(1, size), 100);
+        if ("memoria".equals(modo) && memoria.pronto()) return emMemoria(user, q, p, n);
+        return "like".equals(modo) ? like(user, q, p, n) : fts(user, q, p, n);
+    }
+
+    private PageResult<ComentarioSearchResponse> emMemoria(UsuarioPrincipal user, String q, int page, int size) {
+        var escopo = user.hasRole(Role.ADMIN) ? ComentarioInvertedIndex.Escopo.TODOS
+                : user.hasRole(Role.TECNICO) ? ComentarioInvertedIndex.Escopo.TECNICO
+                : ComentarioInvertedIndex.Escopo.SOLICITANTE;
+        var r = memoria.index().buscar(q, escopo, user.id(), page * size, size);
+        int totalPages = (int) ((r.total() + size - 1) / size);
+        return new PageResult<>(r.content(), page, size, r.total(), totalPages);
+    }
+
+    private PageResult<ComentarioSearchResponse> fts(UsuarioPrincipal user, String q, int page, int size) {
+        int offset = page * size;
+        List<ComentarioSearchRow> rows;
+        long total;
+        if (user.hasRole(Role.ADMIN)) {
+            rows = eventosRepo.ftsComentariosAll(q, offset, size);
+            total = eventosRepo.countFtsComentariosAll(q, countCap);
+        } else if (user.hasRole(Role.TECNICO)) {
+            rows = eventosRepo.ftsComentariosDoTecnico(user.id(), q, offset, size);
+            total = eventosRepo.countFtsComentariosDoTecnico(user.id(), q, countCap);
+        } else {
+            rows = eventosRepo.ftsComentariosDoSolicitante(user.id(), q, offset, size);
+            total = eventosRepo.countFtsComentariosDoSolicitante(user.id(), q, countCap);
+        }
+        // páginas além do limite de contagem: o total é pelo menos o que já foi visto
+        total = Math.max(total, offset + rows.size());
+
+        var content = rows.stream().map(r -> new ComentarioSearchResponse(
+                r.getEventoId(), r.getQuando(), r.getDetalhe(),
+                r.getChamadoId(), r.getChamadoTitulo(),
+                r.getAutorId(), r.getAutorNome())).toList();
+        int totalPages = (int) ((total + size - 1) / size);
+        return new PageResult<>(content, page, size, total, totalPages);
+    }
+
+    private PageResult<ComentarioSearchResponse> like(UsuarioPrincipal user, String q, int page, int size) {
+        var pageable = PageRequest.of(page, size);
+        Page<ComentarioSearchResponse> result;
+        if (user.hasRole(Role.ADMIN)) {
+            result = eventosRepo.searchComentariosAll(q, pageable);
+        } else if (user.hasRole(Role.TECNICO)) {
+            result = eventosRepo.searchComentariosDoTecnico(user.id(), q, pageable);
+        } else {
+            // USUARIO_COMUM
+            result = eventosRepo.searchComentariosDoSolicitante(user.id(), q, pageable);
+        }
+        return new PageResult<>(
+                result.getContent(),
+                result.getNumber(),
+                result.getSize(),
+                result.getTotalElements(),
+                result.getTotalPages()
+        );
+    }
+}
@@ -2,30 +2,61 @@ package com.cloud.yagodev.helpdesk.services;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Emissão e validação dos JWT. O parser é um só (imutável e thread-safe), e access tokens já
+ * verificados ficam num cache limitado, indexado pelo SHA-256 do token (o token em si não fica
+ * em memória) e válido até o {@code exp}: o mesmo bearer repetido não refaz HMAC nem JSON.
+ */
 @Service
 public class JwtService {
+
+    // SHA-256 do token
+    private record Digest(long a, long b, long c, long d) {}
+
+    private record Slot(Jws<Claims> jws, long expiraEm) {}
+
     private final Key key;
+    private final JwtParser parser;
     private final long accessTtl, refreshTtl;
+    private final Map<Digest, Slot> verificados = new ConcurrentHashMap<>();
+    private final int maxCache;
+    private final Counter hits, misses;
 
     public JwtService(@Value("${app.security.jwt.secret}") String secret,
                       @Value("${app.security.jwt.access-ttl}") long accessTtl,
-                      @Value("${app.security.jwt.refresh-ttl}") long refreshTtl) {
+                      @Value("${app.security.jwt.refresh-ttl}") long refreshTtl,
+                      @Value("${app.security.jwt.cache.max-size:10000}") int maxCache,
+                      MeterRegistry meters) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
         this.accessTtl = accessTtl;
         this.refreshTtl = refreshTtl;
+        this.maxCache = maxCache;
+        this.hits = meters.counter("helpdesk.auth.jwt.cache", "result", "hit");
+        this.misses = meters.counter("helpdesk.auth.jwt.cache", "result", "miss");
+        Gauge.builder("helpdesk.auth.jwt.cache.size", verificados, Map::size).register(meters);
     }
 
     public String generateAccess(UUID userId, String email, Collection<String> roles) {
@@ -52,12 +83,50 @@ public class JwtService {
                 .compact();
     }
 
+    /** Valida assinatura e expiração; lança JwtException se inválido. */
     public Jws<Claims> parse(String jwt) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt);
+        if (maxCache <= 0) return parser.parseClaimsJws(jwt);
+
+        long now = System.currentTimeMillis();
+        Digest d = digest(jwt);
+        Slot s = verificados.get(d);
+        if (s != null) {
+            if (s.expiraEm() > now) {
+                hits.increment();
+                return s.jws();
+            }
+            verificados.remove(d);
+        }
+        misses.increment();
+
+        var jws = parser.parseClaimsJws(jwt); // expirado ou adulterado lança aqui
+        // só access tokens: refresh é raro e não vale guardar
+        Date exp = jws.getBody().getExpiration();
+        if (isAccess(jws) && exp != null) {
+            if (verificados.size() >= maxCache) evict(now);
+            verificados.put(d, new Slot(jws, exp.getTime()));
+        }
+        return jws;
     }
 
     public boolean isAccess(Jws<Claims> jws){ return "access".equals(jws.getBody().get("typ")); }
     public boolean isRefresh(Jws<Claims> jws){ return "refresh".equals(jws.getBody().get("typ")); }
 
     public UUID subjectAsUuid(Jws<Claims> jws){ return UUID.fromString(jws.getBody().getSubject()); }
+
+    // remove expirados; se ainda estiver cheio, descarta tudo (revalida sob demanda)
+    private void evict(long now) {
+        verificados.values().removeIf(s -> s.expiraEm() <= now);
+        if (verificados.size() >= maxCache) verificados.clear();
+    }
+
+    private static Digest digest(String jwt) {
+        try {
+            // MessageDigest não é thread-safe; getInstance é barato perto do parse
+            var b = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+            return new Digest(b.getLong(), b.getLong(), b.getLong(), b.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 é obrigatório em toda JVM
+        }
+    }
 }
@@ -1,71 +1,536 @@
 package com.cloud.yagodev.helpdesk.services;
 
 import com.cloud.yagodev.helpdesk.dtos.NotificationDto;
-import com.cloud.yagodev.helpdesk.entities.Usuario;
+import com.cloud.yagodev.helpdesk.dtos.NotificationSummaryDto;
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
 import com.cloud.yagodev.helpdesk.enums.Role;
-import org.springframework.scheduling.annotation.Scheduled;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Notificações por SSE. Quem chama só enfileira (depois do commit, se houver transação):
+ * cada cliente tem uma fila limitada, esvaziada por um pool de threads de plataforma, então um
+ * navegador lento ou morto não segura a requisição nem a conexão com o banco. Fila cheia segue
+ * {@code app.notifications.fila.overflow}.
+ *
+ * <p>O pool mantém {@code app.notifications.escritores} threads e cresce até
+ * {@code app.notifications.escritores-max} só enquanto todas estão ocupadas: quem não lê o socket
+ * prende um escritor na escrita bloqueante do Tomcat até o timeout de conexão (60 s por padrão),
+ * e com pool fixo bastariam tantos clientes parados quanto escritores para calar todos os outros.</p>
+ *
+ * <p>Escrita e encerramento do emitter acontecem só no pool: {@code send} e {@code complete}
+ * do ResponseBodyEmitter são {@code synchronized}, e uma escrita bloqueada num socket lento
+ * prenderia quem chamasse, e numa virtual thread prenderia também o carrier.</p>
+ *
+ * <p>Cada notificação vira JSON uma vez só (no máximo duas: completa e, para quem assinou com
+ * {@code ?view=summary}, o {@link NotificationSummaryDto}); os escritores só copiam os bytes.</p>
+ *
+ * <p>Notificações ficam num {@link SseHistorico}: quem reconecta com {@code Last-Event-ID} recebe
+ * só o que perdeu. No modo local o id é {@code <época>-<seq>}, válido só neste processo. No modo
+ * postgres é {@code c-<número>}, o número de seq_notificacao, e todos os nós entregam na mesma
+ * ordem (a dos commits), então a conexão pode voltar por qualquer nó: cada nó guarda a posição
+ * local de cada número. Id desconhecido (reinício, nó novo, LISTEN que caiu) ou lacuna que já
+ * saiu do histórico recebem {@code RESYNC}, e o navegador recarrega as listas.</p>
+ */
 @Service
 public class NotificationService {
 
-    static final long SSE_TIMEOUT = 0L; // sem timeout (mantemos com ping)
-    private record Client(UUID userId, Set<Role> roles, SseEmitter emitter) {}
+    static final long SSE_TIMEOUT = 0L; // sem timeout (mantemos com ping do SseHeartbeat)
 
-    private final Map<UUID, Client> clients = new ConcurrentHashMap<>();
+    // mensagens por vez antes de devolver o escritor ao pool (os outros clientes não esperam uma fila longa)
+    private static final int LOTE = 32;
 
-    public SseEmitter subscribe(Usuario u) {
+    /** O que fazer quando a fila do cliente está cheia. */
+    public enum Overflow {
+        /** descarta a mensagem mais antiga da fila */
+        DROP_OLDEST,
+        /** substitui a mensagem pendente do mesmo chamado (senão, descarta a mais antiga) */
+        COALESCE,
+        /** encerra a conexão; o navegador reconecta e ressincroniza por /changes */
+        DISCONNECT
+    }
+
+    // JSON já pronto; "compacto" é o que vai para quem assinou com ?view=summary; id nulo = fora do histórico
+    private record Mensagem(String id, String nome, byte[] completo, byte[] compacto, UUID chamadoId) {}
+
+    // o dto fica junto para gerar, no reenvio, a versão que ninguém usava no envio original
+    private record Enviada(Mensagem m, NotificationDto dto) {}
+
+    private final SseRegistry<Client> clients = new SseRegistry<>();
+    private final ObjectMapper json;
+    private final PgNotificationBus bus;
+    private final SseHistorico<Enviada> historico;
+    private final int capacidade;
+    private final Overflow overflow;
+    private final Counter descartadas;
+    private final Counter desconectadosOverflow;
+    private final Counter reenviadas;
+    private final Counter resyncs;
+    private final SseHeartbeat<Client> heartbeat;
+    private final long silencioNanos;
+    private final ExecutorService escritores;
+
+    // numeração, histórico e distribuição andam juntos: quem se inscreve no meio não perde nem repete nada
+    private final ReentrantLock entrega = new ReentrantLock();
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private long seq;
+    // modo postgres: número da notificação -> seq local em que foi entregue; os mais antigos saem
+    private final Map<Long, Long> posicoes;
+    private String ultimoNumerado;
+
+    public NotificationService(ObjectMapper json,
+                               PgNotificationBus bus,
+                               MeterRegistry meters,
+                               @Value("${app.notifications.fila.capacidade:256}") int capacidade,
+                               @Value("${app.notifications.fila.overflow:DROP_OLDEST}") Overflow overflow,
+                               @Value("${app.notifications.replay.capacidade:256}") int replay,
+                               @Value("${app.notifications.replay.max-usuarios:10000}") int replayUsuarios,
+                               @Value("${app.notifications.heartbeat.intervalo-ms:15000}") long heartbeatMs,
+                               @Value("${app.notifications.heartbeat.fatias:16}") int heartbeatFatias,
+                               @Value("${app.notifications.escritores:16}") int escritores,
+                               @Value("${app.notifications.escritores-max:256}") int escritoresMax) {
+        this.json = json;
+        this.bus = bus;
+        this.historico = new SseHistorico<>(Math.max(0, replay), Math.max(1, replayUsuarios));
+        this.capacidade = Math.max(1, capacidade);
+        this.overflow = overflow;
+        this.descartadas = Counter.builder("helpdesk.sse.descartadas")
+                .tag("politica", overflow.name()).register(meters);
+        this.desconectadosOverflow = Counter.builder("helpdesk.sse.desconectados")
+                .tag("motivo", "overflow").register(meters);
+        this.reenviadas = Counter.builder("helpdesk.sse.replay.reenviadas").register(meters);
+        this.resyncs = Counter.builder("helpdesk.sse.replay.resync").register(meters);
+        Gauge.builder("helpdesk.sse.clientes", clients, SseRegistry::size).register(meters);
+        Gauge.builder("helpdesk.sse.usuarios", clients, SseRegistry::usuarios).register(meters);
+        Gauge.builder("helpdesk.sse.fila.profundidade", this, NotificationService::profundidadeTotal).register(meters);
+        int maxPosicoes = Math.max(1024, 16 * Math.max(0, replay));
+        this.posicoes = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> e) {
+                return size() > maxPosicoes;
+            }
+        };
+        bus.aoReceber(e -> entregar(e.dto(), e.roles(), e.usuarios(), e.numero()));
+        bus.aoReconectar(this::esquecerPosicoes);
+        heartbeatMs = Math.max(1000, heartbeatMs);
+        // quem recebeu algo na última metade do intervalo não precisa de ping nesta volta
+        this.silencioNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMs) / 2;
+        this.heartbeat = new SseHeartbeat<>(heartbeatMs, Math.max(1, heartbeatFatias), this::pulsar);
+        var n = new AtomicInteger();
+        var fila = new FilaElastica();
+        var pool = new ThreadPoolExecutor(Math.max(1, escritores), Math.max(escritores, escritoresMax),
+                30, TimeUnit.SECONDS, fila, r -> {
+            Thread t = new Thread(r, "sse-escritor-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, (r, p) -> {
+            if (p.isShutdown()) throw new RejectedExecutionException();
+            fila.forcar(r); // perdeu a corrida para criar a thread: espera na fila
+        });
+        fila.pool = pool;
+        this.escritores = pool;
+        Gauge.builder("helpdesk.sse.escritores", pool, ThreadPoolExecutor::getPoolSize).register(meters);
+    }
+
+    // recusa enquanto não há escritor livre e o pool pode crescer: o ThreadPoolExecutor cria outra thread
+    private static final class FilaElastica extends LinkedBlockingQueue<Runnable> {
+        private ThreadPoolExecutor pool;
+
+        @Override
+        public boolean offer(Runnable r) {
+            if (pool.getActiveCount() >= pool.getPoolSize() && pool.getPoolSize() < pool.getMaximumPoolSize()) {
+                return false;
+            }
+            return super.offer(r);
+        }
+
+        void forcar(Runnable r) {
+            super.offer(r);
+        }
+    }
+
+    @PreDestroy
+    public void parar() {
+        heartbeat.close();
+        escritores.shutdownNow();
+    }
+
+    /** {@code ultimoId}: Last-Event-ID da conexão anterior, ou null numa conexão nova. */
+    public SseEmitter subscribe(UsuarioPrincipal u, boolean compacto, String ultimoId) {
         var emitter = new SseEmitter(SSE_TIMEOUT);
-        var client = new Client(u.getId(), u.getRoles(), emitter);
-        clients.put(u.getId(), client);
+        var client = new Client(u.id(), Set.copyOf(u.roles()), emitter, compacto);
 
-        emitter.onCompletion(() -> clients.remove(u.getId()));
-        emitter.onTimeout(() -> clients.remove(u.getId()));
-        emitter.onError(ex -> clients.remove(u.getId()));
+        emitter.onCompletion(() -> remover(client));
+        emitter.onTimeout(() -> remover(client));
+        emitter.onError(ex -> remover(client));
 
         // primeira mensagem opcional
-        safeSend(client, "CONNECTED", Map.of("userId", u.getId().toString()));
+        client.oferecer(simples("CONNECTED", Map.of("userId", u.id().toString())));
+
+        entrega.lock();
+        try {
+            clients.adicionar(client.userId(), client.roles(), client); // outra aba do mesmo usuário não substitui esta
+            if (ultimoId != null && !ultimoId.isBlank()) retomar(client, ultimoId.trim());
+        } finally {
+            entrega.unlock();
+        }
+        heartbeat.adicionar(client);
         return emitter;
     }
 
+    // sob o lock de entrega: nada é numerado entre a leitura do histórico e o registro do cliente
+    private void retomar(Client c, String ultimoId) {
+        long ultimo = posicao(ultimoId);
+        if (ultimo < 0 || ultimo > seq) {
+            ressincronizar(c, "epoca");
+            return;
+        }
+        List<Enviada> perdidas = historico.desde(ultimo, c.roles(), c.userId());
+        // mais do que cabe na fila seria descartado (ou derrubaria a conexão) de qualquer jeito
+        if (perdidas == null || perdidas.size() > capacidade) {
+            ressincronizar(c, "lacuna");
+            return;
+        }
+        for (Enviada e : perdidas) c.oferecer(versao(e, c.compacto));
+        reenviadas.increment(perdidas.size());
+    }
+
+    // seq local do id recebido, ou -1 se não é deste processo (modo local) ou ainda não passou por aqui
+    private long posicao(String id) {
+        int i = id.lastIndexOf('-');
+        if (i <= 0) return -1;
+        String prefixo = id.substring(0, i);
+        try {
+            long n = Long.parseLong(id.substring(i + 1));
+            if (bus.ativo()) return "c".equals(prefixo) ? posicoes.getOrDefault(n, -1L) : -1;
+            return epoca.equals(prefixo) ? n : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // leva o id atual: a próxima reconexão parte daqui, e não da lacuna
+    private void ressincronizar(Client c, String motivo) {
+        byte[] bytes = encode(Map.of("motivo", motivo));
+        String id = bus.ativo() ? ultimoNumerado : epoca + "-" + seq;
+        c.oferecer(new Mensagem(id, "RESYNC", bytes, bytes, null));
+        resyncs.increment();
+    }
+
+    // o LISTEN voltou depois de cair: o que foi publicado nesse meio tempo não está no histórico
+    private void esquecerPosicoes() {
+        entrega.lock();
+        try {
+            posicoes.clear();
+            ultimoNumerado = null;
+            for (Client c : clients.todas()) ressincronizar(c, "lacuna");
+        } finally {
+            entrega.unlock();
+        }
+    }
+
+    private Mensagem versao(Enviada e, boolean compacto) {
+        Mensagem m = e.m();
+        if (compacto && m.compacto() == null) {
+            return new Mensagem(m.id(), m.nome(), m.completo(), encode(NotificationSummaryDto.of(e.dto())), m.chamadoId());
+        }
+        if (!compacto && m.completo() == null) {
+            return new Mensagem(m.id(), m.nome(), encode(e.dto()), m.compacto(), m.chamadoId());
+        }
+        return m;
+    }
+
     public void sendToUser(UUID userId, NotificationDto dto) {
-        var c = clients.get(userId);
-        if (c != null) safeSend(c, dto);
+        send(dto, Set.of(), Set.of(userId));
     }
 
     public void sendToRole(Role role, NotificationDto dto) {
-        clients.values().forEach(c -> {
-            if (c.roles().contains(role)) safeSend(c, dto);
-        });
+        send(dto, Set.of(role), Set.of());
+    }
+
+    /**
+     * Envia a quem tem alguma das {@code roles} ou é um dos {@code usuarios}: cada conexão
+     * recebe uma vez só, mesmo que caia em mais de um critério. No modo postgres a notificação
+     * vai pelo canal, no commit, para os assinantes de todos os nós (este inclusive).
+     */
+    public void send(NotificationDto dto, Collection<Role> roles, Collection<UUID> usuarios) {
+        if (bus.ativo()) {
+            bus.publicar(dto, roles, usuarios);
+            return;
+        }
+        aposCommit(() -> entregar(dto, roles, usuarios, null));
     }
 
-    private void safeSend(Client c, NotificationDto dto) {
+    // entrega às conexões deste nó (e guarda no histórico para quem reconectar); numero só no modo postgres
+    private void entregar(NotificationDto dto, Collection<Role> roles, Collection<UUID> usuarios, Long numero) {
+        entrega.lock();
         try {
-            c.emitter().send(SseEmitter.event()
-                    .name(dto.type().name())
-                    .data(dto));
-        } catch (IOException ignored) {
-            clients.remove(c.userId());
+            Set<Client> alvo = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Role r : roles) alvo.addAll(clients.daRole(r));
+            for (UUID u : usuarios) alvo.addAll(clients.doUsuario(u));
+            if (alvo.isEmpty() && !historico.ativo()) return;
+
+            boolean algumCompleto = false, algumCompacto = false;
+            for (Client c : alvo) {
+                if (c.compacto) algumCompacto = true;
+                else algumCompleto = true;
+            }
+            long s = ++seq;
+            String id = epoca + "-" + s;
+            if (numero != null) {
+                id = "c-" + numero;
+                posicoes.put(numero, s);
+                ultimoNumerado = id;
+            }
+            var m = new Mensagem(id, dto.type().name(),
+                    algumCompleto ? encode(dto) : null,
+                    algumCompacto ? encode(NotificationSummaryDto.of(dto)) : null,
+                    dto.chamadoId());
+            historico.registrar(s, roles, usuarios, new Enviada(m, dto));
+            alvo.forEach(c -> c.oferecer(m));
+        } finally {
+            entrega.unlock();
         }
     }
-    private void safeSend(Client c, String name, Object payload) {
+
+    // Mantém a conexão viva; cliente morto aparece como falha de escrita no escritor
+    private void pulsar(Set<Client> fatia) {
+        var m = simples("PING", Map.of("ts", System.currentTimeMillis()));
+        long agora = System.nanoTime();
+        fatia.forEach(c -> c.ping(m, agora));
+    }
+
+    // mesma carga nas duas versões
+    private Mensagem simples(String nome, Object dados) {
+        byte[] bytes = encode(dados);
+        return new Mensagem(null, nome, bytes, bytes, null);
+    }
+
+    private byte[] encode(Object dados) {
         try {
-            c.emitter().send(SseEmitter.event().name(name).data(payload));
-        } catch (IOException ignored) {
-            clients.remove(c.userId());
+            return json.writeValueAsBytes(dados);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    // Mantém a conexão viva (e detecta clientes mortos)
-    @Scheduled(fixedRate = 15000)
-    public void ping() {
-        clients.values().forEach(c -> safeSend(c, "PING", Map.of("ts", System.currentTimeMillis())));
+    private void remover(Client c) {
+        clients.remover(c.userId(), c.roles(), c);
+        heartbeat.remover(c);
+        c.fechar();
+    }
+
+    private double profundidadeTotal() {
+        long n = 0;
+        for (var c : clients.todas()) n += c.profundidade();
+        return n;
+    }
+
+    // notificação de mudança que pode ser desfeita só sai depois do commit
+    private static void aposCommit(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    /**
+     * Conexão SSE com fila própria. Só {@link #drenar}, no pool de escritores, mexe no emitter;
+     * {@code agendado} garante no máximo uma tarefa por cliente, então as escritas saem em ordem.
+     */
+    private final class Client {
+        private final UUID userId;
+        private final Set<Role> roles;
+        private final SseEmitter emitter;
+        private final boolean compacto;
+        private final ArrayDeque<Mensagem> fila = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean fechado;
+        private boolean encerrar; // fila estourou com DISCONNECT: o escritor encerra o emitter
+        private boolean agendado;
+        private volatile long ultimaEscrita = System.nanoTime();
+
+        Client(UUID userId, Set<Role> roles, SseEmitter emitter, boolean compacto) {
+            this.userId = userId;
+            this.roles = roles;
+            this.emitter = emitter;
+            this.compacto = compacto;
+        }
+
+        UUID userId() { return userId; }
+        Set<Role> roles() { return roles; }
+
+        // roda na thread de quem produz (às vezes sob o lock de entrega): só mexe na fila, nunca no emitter
+        void oferecer(Mensagem m) {
+            boolean descartou = false;
+            boolean desconectar = false;
+            boolean agendar;
+            lock.lock();
+            try {
+                if (fechado) return;
+                if (fila.size() >= capacidade) {
+                    if (overflow == Overflow.DISCONNECT) {
+                        fechado = encerrar = desconectar = true;
+                        fila.clear();
+                    } else {
+                        if (overflow != Overflow.COALESCE || !removerDoChamado(m.chamadoId())) fila.pollFirst();
+                        descartou = true;
+                    }
+                }
+                if (!fechado) fila.addLast(m);
+                agendar = marcarAgendado();
+            } finally {
+                lock.unlock();
+            }
+            if (descartou) descartadas.increment();
+            if (desconectar) {
+                // sai já do registro; o complete fica para o escritor, depois da escrita em curso
+                desconectadosOverflow.increment();
+                remover(this);
+            }
+            if (agendar) agendar();
+        }
+
+        // ping só para conexão calada e com fila vazia: com mensagem pendente o escritor já vai escrever
+        void ping(Mensagem m, long agora) {
+            if (agora - ultimaEscrita < silencioNanos) return;
+            boolean agendar;
+            lock.lock();
+            try {
+                if (fechado || !fila.isEmpty()) return;
+                fila.addLast(m);
+                agendar = marcarAgendado();
+            } finally {
+                lock.unlock();
+            }
+            if (agendar) agendar();
+        }
+
+        // sob o lock: true se cabe a quem chamou submeter a tarefa
+        private boolean marcarAgendado() {
+            if (agendado) return false;
+            agendado = true;
+            return true;
+        }
+
+        private void agendar() {
+            try {
+                escritores.execute(this::drenar);
+            } catch (RejectedExecutionException e) {
+                // pool parado: a aplicação está desligando
+            }
+        }
+
+        private boolean removerDoChamado(UUID chamadoId) {
+            if (chamadoId == null) return false;
+            for (Iterator<Mensagem> it = fila.iterator(); it.hasNext(); ) {
+                if (Objects.equals(it.next().chamadoId(), chamadoId)) {
+                    it.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int profundidade() {
+            lock.lock();
+            try {
+                return fila.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void fechar() {
+            lock.lock();
+            try {
+                fechado = true;
+                fila.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // tarefa do pool: escreve até LOTE mensagens e devolve a thread; com sobra, volta para o fim da fila
+        private void drenar() {
+            for (int n = 0; ; n++) {
+                Mensagem m;
+                boolean encerrarAgora = false;
+                lock.lock();
+                try {
+                    if (fechado) {
+                        agendado = false;
+                        encerrarAgora = encerrar;
+                        encerrar = false;
+                        m = null;
+                    } else if (fila.isEmpty()) {
+                        agendado = false;
+                        return;
+                    } else if (n == LOTE) {
+                        m = null;
+                    } else {
+                        m = fila.pollFirst();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (encerrarAgora) {
+                    // o navegador reconecta com Last-Event-ID e recupera pelo histórico
+                    emitter.complete();
+                    return;
+                }
+                if (m == null) {
+                    if (n == LOTE) agendar();
+                    return;
+                }
+                try {
+                    byte[] dados = compacto ? m.compacto() : m.completo();
+                    var evento = SseEmitter.event().name(m.nome()).data(dados, MediaType.APPLICATION_JSON);
+                    emitter.send(m.id() != null ? evento.id(m.id()) : evento);
+                    ultimaEscrita = System.nanoTime();
+                } catch (IOException | IllegalStateException e) {
+                    // conexão caiu (ou o emitter já foi encerrado); o container avisa o erro e o Spring encerra
+                    remover(this);
+                    return;
+                }
+            }
+        }
     }
 }
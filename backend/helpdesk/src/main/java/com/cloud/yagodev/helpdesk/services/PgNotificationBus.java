@@ -0,0 +1,235 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.NotificationDto;
+import com.cloud.yagodev.helpdesk.enums.Role;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Repasse de notificações entre instâncias da API pelo próprio PostgreSQL
+ * ({@code app.notifications.modo=postgres}). {@link #publicar} faz {@code pg_notify} na transação
+ * de quem chama, que o banco só entrega depois do commit (e descarta no rollback); cada nó
+ * mantém uma conexão dedicada com {@code LISTEN} e entrega aos seus assinantes o que veio pelo
+ * canal, inclusive o que ele mesmo publicou. Payload acima do limite do NOTIFY vai para
+ * tb_notificacao_outbox.
+ *
+ * <p>Cada notificação leva um {@code numero} de seq_notificacao, o mesmo em todos os nós. O banco
+ * entrega os NOTIFY na ordem dos commits, igual para todos os ouvintes; por isso o nó de origem
+ * também só entrega o que volta do canal, e nenhum nó vê duas notificações em ordem diferente.</p>
+ *
+ * <p>O mesmo canal leva as {@link Invalidacao}s: marcas d'água e caches por nó (versões e ETags
+ * do ChamadoVersionService, TecnicoDirectory, UsuarioPrincipalCache) avançam também com o que
+ * outro nó gravou, logo depois do commit dele. Os modos {@code memoria} de estatísticas e de busca
+ * de comentários não têm esse repasse e não sobem junto com {@code modo=postgres}.</p>
+ */
+@Service
+public class PgNotificationBus {
+
+    /** O que trafega no canal: destino + notificação e seu número, só o id no outbox, ou uma invalidação. */
+    public record Envelope(String origem, Set<Role> roles, Set<UUID> usuarios, NotificationDto dto, Long outbox,
+                           Invalidacao invalidacao, Long numero) {}
+
+    /**
+     * Mudança que os outros nós refletem nos caches locais. {@code id} é o chamado (CHAMADO,
+     * CHAMADO_EXCLUIDO) ou o usuário (PRINCIPAL); os demais campos só valem para chamados.
+     */
+    public record Invalidacao(Tipo tipo, UUID id, UUID solicitante, UUID tecnicoAnterior, UUID tecnico) {
+        public enum Tipo { CHAMADO, CHAMADO_EXCLUIDO, ESTATISTICAS, TECNICOS, PRINCIPAL }
+
+        public static Invalidacao de(Tipo tipo, UUID id) {
+            return new Invalidacao(tipo, id, null, null, null);
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PgNotificationBus.class);
+    private static final String CANAL = "helpdesk_notificacoes";
+    private static final int LIMITE_NOTIFY = 7900; // o PostgreSQL aceita até 8000 bytes
+
+    private final JdbcTemplate jdbc;
+    private final DataSourceProperties dataSource;
+    private final ObjectMapper json;
+    private final boolean ativo;
+    private final String origem = UUID.randomUUID().toString();
+
+    private volatile Consumer<Envelope> receptor;
+    private volatile Runnable reconexao;
+    private final List<Consumer<Invalidacao>> invalidacoes = new CopyOnWriteArrayList<>();
+    private volatile boolean rodando;
+    private volatile Connection escuta;
+
+    public PgNotificationBus(JdbcTemplate jdbc,
+                             DataSourceProperties dataSource,
+                             ObjectMapper json,
+                             @Value("${app.notifications.modo:local}") String modo) {
+        this.jdbc = jdbc;
+        this.dataSource = dataSource;
+        this.json = json;
+        this.ativo = "postgres".equalsIgnoreCase(modo.trim());
+    }
+
+    public boolean ativo() {
+        return ativo;
+    }
+
+    /** Quem entrega localmente o que chega pelo canal (o NotificationService). */
+    public void aoReceber(Consumer<Envelope> receptor) {
+        this.receptor = receptor;
+    }
+
+    /** Chamado quando o LISTEN volta depois de cair: o que foi publicado nesse meio tempo se perdeu. */
+    public void aoReconectar(Runnable r) {
+        this.reconexao = r;
+    }
+
+    /** Quem aplica as invalidações vindas de outros nós (pode haver vários). */
+    public void aoInvalidar(Consumer<Invalidacao> ouvinte) {
+        invalidacoes.add(ouvinte);
+    }
+
+    /** Publica para todos os nós, este inclusive; dentro de transação, sai no commit. */
+    public void publicar(NotificationDto dto, Collection<Role> roles, Collection<UUID> usuarios) {
+        if (!ativo) return;
+        Long numero = jdbc.queryForObject("select nextval('seq_notificacao')", Long.class);
+        String payload = encode(new Envelope(origem, Set.copyOf(roles), Set.copyOf(usuarios), dto, null, null, numero));
+        if (payload.getBytes(StandardCharsets.UTF_8).length > LIMITE_NOTIFY) {
+            Long id = jdbc.queryForObject(
+                    "insert into tb_notificacao_outbox (payload) values (?) returning id", Long.class, payload);
+            payload = encode(new Envelope(origem, null, null, null, id, null, null));
+        }
+        notificar(payload);
+    }
+
+    /** Avisa os outros nós de uma mudança já aplicada neste; dentro de transação, sai no commit. */
+    public void invalidar(Invalidacao i) {
+        if (!ativo) return;
+        notificar(encode(new Envelope(origem, null, null, null, null, i, null)));
+    }
+
+    private void notificar(String payload) {
+        jdbc.query("select pg_notify(?, ?)", rs -> null, CANAL, payload);
+    }
+
+    // quem ficou fora do ar por mais que isso já perdeu a notificação de qualquer jeito
+    @Scheduled(fixedDelay = 60_000)
+    public void limparOutbox() {
+        if (!ativo) return;
+        jdbc.update("delete from tb_notificacao_outbox where criado_em < now() - interval '5 minutes'");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!ativo) return;
+        rodando = true;
+        Thread.ofPlatform().daemon().name("pg-notification-listen").start(this::escutar);
+    }
+
+    @PreDestroy
+    public void parar() {
+        rodando = false;
+        Connection c = escuta;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    // conexão própria (fora do pool): fica presa ao LISTEN enquanto o nó estiver de pé
+    private void escutar() {
+        long espera = 1000;
+        boolean primeira = true;
+        while (rodando) {
+            try (Connection c = DriverManager.getConnection(dataSource.determineUrl(),
+                    dataSource.determineUsername(), dataSource.determinePassword())) {
+                escuta = c;
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                log.info("Escutando notificações de outros nós no canal {}", CANAL);
+                espera = 1000;
+                Runnable r = reconexao;
+                if (!primeira && r != null) r.run();
+                primeira = false;
+                PGConnection pg = c.unwrap(PGConnection.class);
+                while (rodando) {
+                    PGNotification[] ns = pg.getNotifications(10_000);
+                    if (ns == null || ns.length == 0) {
+                        // sem tráfego: confirma que a conexão continua viva
+                        try (Statement st = c.createStatement()) {
+                            st.execute("select 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification n : ns) receber(n.getParameter());
+                }
+            } catch (SQLException e) {
+                if (!rodando) return;
+                log.warn("Conexão de LISTEN caiu; nova tentativa em {} ms", espera, e);
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                espera = Math.min(espera * 2, 30_000);
+            } finally {
+                escuta = null;
+            }
+        }
+    }
+
+    private void receber(String payload) {
+        try {
+            Envelope e = json.readValue(payload, Envelope.class);
+            if (e.invalidacao() != null) {
+                if (origem.equals(e.origem())) return; // este nó já aplicou
+                for (var ouvinte : invalidacoes) ouvinte.accept(e.invalidacao());
+                return;
+            }
+            if (e.outbox() != null) {
+                var corpo = jdbc.query("select payload from tb_notificacao_outbox where id = ?",
+                        (rs, i) -> rs.getString(1), e.outbox());
+                if (corpo.isEmpty()) return;
+                e = json.readValue(corpo.get(0), Envelope.class);
+            }
+            Consumer<Envelope> r = receptor;
+            if (r != null) r.accept(e);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Notificação de outro nó ignorada", ex);
+        }
+    }
+
+    private String encode(Envelope e) {
+        try {
+            return json.writeValueAsString(e);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Roda de heartbeat: as conexões são distribuídas em {@code fatias} e, a cada
+ * {@code intervalo / fatias}, uma thread própria entrega uma fatia a {@code aoVencer}. Cada
+ * conexão é visitada uma vez por intervalo, e o trabalho fica espalhado em vez de concentrado
+ * num pico a cada intervalo. {@code aoVencer} só deve enfileirar (nada de I/O nesta thread).
+ */
+final class SseHeartbeat<C> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SseHeartbeat.class);
+
+    private final List<Set<C>> fatias;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final ScheduledExecutorService agenda;
+    private int atual; // só a thread da agenda mexe
+
+    SseHeartbeat(long intervaloMs, int fatias, Consumer<Set<C>> aoVencer) {
+        this.fatias = IntStream.range(0, fatias)
+                .mapToObj(i -> Collections.<C>newSetFromMap(new ConcurrentHashMap<>()))
+                .toList();
+        this.agenda = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("sse-heartbeat").factory());
+        long passo = Math.max(1, intervaloMs / fatias);
+        agenda.scheduleAtFixedRate(() -> {
+            Set<C> fatia = this.fatias.get(atual);
+            atual = (atual + 1) % this.fatias.size();
+            try {
+                if (!fatia.isEmpty()) aoVencer.accept(Collections.unmodifiableSet(fatia));
+            } catch (RuntimeException e) {
+                // exceção cancelaria o agendamento
+                log.warn("Falha no heartbeat SSE", e);
+            }
+        }, passo, passo, TimeUnit.MILLISECONDS);
+    }
+
+    /** Rodízio: conexões abertas em sequência caem em fatias diferentes. */
+    void adicionar(C conexao) {
+        fatias.get(Math.floorMod(proxima.getAndIncrement(), fatias.size())).add(conexao);
+    }
+
+    void remover(C conexao) {
+        for (Set<C> f : fatias) {
+            if (f.remove(conexao)) return;
+        }
+    }
+
+    @Override
+    public void close() {
+        agenda.shutdownNow();
+    }
+}
@@ -0,0 +1,117 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.enums.Role;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Últimas mensagens enviadas, em anéis de tamanho fixo por role e por usuário, para reenviar a
+ * quem reconecta com {@code Last-Event-ID}. Quando o que a conexão perdeu já saiu de algum anel
+ * que ela acompanha, {@link #desde} devolve {@code null} e quem chama manda ressincronizar.
+ *
+ * <p>Sem sincronização própria: o NotificationService chama sempre sob o mesmo lock com que
+ * numera e distribui as mensagens.</p>
+ */
+final class SseHistorico<M> {
+
+    private final int capacidade;
+    private final int maxUsuarios;
+    private final EnumMap<Role, Anel<M>> porRole = new EnumMap<>(Role.class);
+    private final Map<UUID, Anel<M>> porUsuario = new HashMap<>();
+    // maior seq que pode ter saído junto com anéis de usuário esquecidos
+    private long pisoUsuarios;
+
+    SseHistorico(int capacidade, int maxUsuarios) {
+        this.capacidade = capacidade;
+        this.maxUsuarios = maxUsuarios;
+        if (capacidade > 0) {
+            for (Role r : Role.values()) porRole.put(r, new Anel<>(capacidade, 0));
+        }
+    }
+
+    boolean ativo() {
+        return capacidade > 0;
+    }
+
+    void registrar(long seq, Collection<Role> roles, Collection<UUID> usuarios, M msg) {
+        if (!ativo()) return;
+        for (Role r : roles) porRole.get(r).adicionar(seq, msg);
+        for (UUID u : usuarios) {
+            Anel<M> anel = porUsuario.get(u);
+            if (anel == null) {
+                if (porUsuario.size() >= maxUsuarios) {
+                    // lotou: esquece todos; quem dependia deles recebe RESYNC
+                    porUsuario.clear();
+                    pisoUsuarios = seq - 1;
+                }
+                anel = new Anel<>(capacidade, pisoUsuarios);
+                porUsuario.put(u, anel);
+            }
+            anel.adicionar(seq, msg);
+        }
+    }
+
+    /**
+     * Mensagens com seq maior que {@code ultimo} que uma conexão com essas roles e esse usuário
+     * teria recebido, em ordem e sem repetição; {@code null} se alguma delas já foi descartada.
+     */
+    List<M> desde(long ultimo, Set<Role> roles, UUID userId) {
+        if (!ativo()) return null;
+        TreeMap<Long, M> out = new TreeMap<>();
+        for (Role r : roles) {
+            if (!porRole.get(r).copiarDesde(ultimo, out)) return null;
+        }
+        Anel<M> anel = porUsuario.get(userId);
+        if (anel == null) {
+            if (pisoUsuarios > ultimo) return null;
+        } else if (!anel.copiarDesde(ultimo, out)) {
+            return null;
+        }
+        return new ArrayList<>(out.values());
+    }
+
+    private static final class Anel<M> {
+        private final long[] seqs;
+        private final Object[] msgs;
+        private int inicio;
+        private int tamanho;
+        private long descartadoAte;
+
+        Anel(int capacidade, long descartadoAte) {
+            this.seqs = new long[capacidade];
+            this.msgs = new Object[capacidade];
+            this.descartadoAte = descartadoAte;
+        }
+
+        void adicionar(long seq, M msg) {
+            int i;
+            if (tamanho == seqs.length) {
+                descartadoAte = seqs[inicio];
+                i = inicio;
+                inicio = (inicio + 1) % seqs.length;
+            } else {
+                i = (inicio + tamanho++) % seqs.length;
+            }
+            seqs[i] = seq;
+            msgs[i] = msg;
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean copiarDesde(long ultimo, Map<Long, M> out) {
+            if (descartadoAte > ultimo) return false;
+            for (int k = 0; k < tamanho; k++) {
+                int i = (inicio + k) % seqs.length;
+                if (seqs[i] > ultimo) out.put(seqs[i], (M) msgs[i]);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.enums.Role;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conexões SSE abertas, indexadas por usuário (várias abas por usuário) e por role, para que
+ * um envio a uma role percorra só quem tem a role. Os conjuntos são concorrentes e a
+ * iteração é fracamente consistente: conexão que entra ou sai durante um envio pode ou não
+ * receber a mensagem, mas nada quebra.
+ */
+final class SseRegistry<C> {
+
+    private final Map<UUID, Set<C>> porUsuario = new ConcurrentHashMap<>();
+    // preenchido no construtor e nunca alterado; só os conjuntos mudam
+    private final EnumMap<Role, Set<C>> porRole = new EnumMap<>(Role.class);
+    private final Set<C> todas = ConcurrentHashMap.newKeySet();
+
+    SseRegistry() {
+        for (Role r : Role.values()) porRole.put(r, ConcurrentHashMap.newKeySet());
+    }
+
+    void adicionar(UUID userId, Set<Role> roles, C conexao) {
+        // compute é atômico por chave: não corre com a remoção do conjunto que ficou vazio
+        porUsuario.compute(userId, (id, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(conexao);
+            return set;
+        });
+        for (Role r : roles) porRole.get(r).add(conexao);
+        todas.add(conexao);
+    }
+
+    /** Remove a conexão; devolve false se ela já tinha saído (remoção idempotente). */
+    boolean remover(UUID userId, Set<Role> roles, C conexao) {
+        if (!todas.remove(conexao)) return false;
+        for (Role r : roles) porRole.get(r).remove(conexao);
+        porUsuario.computeIfPresent(userId, (id, set) -> {
+            set.remove(conexao);
+            return set.isEmpty() ? null : set;
+        });
+        return true;
+    }
+
+    Set<C> doUsuario(UUID userId) {
+        Set<C> set = porUsuario.get(userId);
+        return set != null ? Collections.unmodifiableSet(set) : Set.of();
+    }
+
+    Set<C> daRole(Role role) {
+        return Collections.unmodifiableSet(porRole.get(role));
+    }
+
+    Set<C> todas() {
+        return Collections.unmodifiableSet(todas);
+    }
+
+    int size() {
+        return todas.size();
+    }
+
+    int usuarios() {
+        return porUsuario.size();
+    }
+}
@@ -0,0 +1,85 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.UsuarioLookup;
+import com.cloud.yagodev.helpdesk.enums.Role;
+import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
+import com.cloud.yagodev.helpdesk.services.PgNotificationBus.Invalidacao;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot em memória dos técnicos ativos (diálogo de designação do admin).
+ * Carregado sob demanda e descartado pelo UsuarioService após o commit de
+ * qualquer mudança de usuário (neste nó ou, no modo postgres, em outro); o ETag é
+ * derivado do conteúdo.
+ */
+@Service
+public class TecnicoDirectory {
+
+    public record Snapshot(List<UsuarioLookup> tecnicos, String etag) {}
+
+    private final UsuarioRepository repo;
+    private final AtomicLong geracao = new AtomicLong();
+    private volatile Snapshot atual;
+
+    private final PgNotificationBus bus;
+
+    public TecnicoDirectory(UsuarioRepository repo, PgNotificationBus bus) {
+        this.repo = repo;
+        this.bus = bus;
+        bus.aoInvalidar(i -> {
+            if (i.tipo() == Invalidacao.Tipo.TECNICOS) descartar();
+        });
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = atual;
+        if (s != null) return s;
+
+        // se houver invalidação durante a carga, devolve o resultado mas não guarda
+        long g = geracao.get();
+        var tecnicos = List.copyOf(repo.lookupAtivosPorRole(Role.TECNICO));
+        s = new Snapshot(tecnicos, etagOf(tecnicos));
+        synchronized (this) {
+            if (geracao.get() == g) atual = s;
+        }
+        return s;
+    }
+
+    /** Muda a cada invalidação (nomes de técnicos em caches de terceiros). */
+    public long geracao() { return geracao.get(); }
+
+    /** Descarta o snapshot; dentro de transação, só depois do commit. */
+    public void invalidate() {
+        bus.invalidar(Invalidacao.de(Invalidacao.Tipo.TECNICOS, null));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartar();
+                }
+            });
+        } else {
+            descartar();
+        }
+    }
+
+    private synchronized void descartar() {
+        geracao.incrementAndGet();
+        atual = null;
+    }
+
+    private static String etagOf(List<UsuarioLookup> tecnicos) {
+        var crc = new CRC32();
+        for (var t : tecnicos) {
+            crc.update((t.id() + "|" + t.nome() + "|" + t.email() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return "\"t-" + tecnicos.size() + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+}
@@ -1,15 +1,34 @@
 package com.cloud.yagodev.helpdesk.services;
 
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
 import com.cloud.yagodev.helpdesk.entities.Usuario;
 import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
 
 @Service
-public class UsuarioDetailsService implements UserDetailsService {
+public class UsuarioDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    /** UserDetails que já carrega o principal: o login não precisa buscar o usuário de novo. */
+    public static final class UsuarioDetails extends User {
+        private final UsuarioPrincipal principal;
+
+        UsuarioDetails(Usuario u) {
+            super(u.getEmail(), u.getSenhaHash(), u.isAtivo(), true, true, true,
+                    u.getRoles().stream().map(r -> new SimpleGrantedAuthority("ROLE_" + r.name())).toList());
+            this.principal = new UsuarioPrincipal(u.getId(), u.getEmail(), u.getNome(), Set.copyOf(u.getRoles()));
+        }
+
+        public UsuarioPrincipal principal() { return principal; }
+    }
 
     private final UsuarioRepository repo;
     public UsuarioDetailsService(UsuarioRepository repo) { this.repo = repo; }
@@ -18,10 +37,18 @@ public class UsuarioDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Usuario u = repo.findByEmailIgnoreCase(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
-        var auths = u.getRoles().stream()
-                .map(r -> new SimpleGrantedAuthority("ROLE_" + r.name()))
-                .toList();
-        return new org.springframework.security.core.userdetails.User(
-                u.getEmail(), u.getSenhaHash(), u.isAtivo(), true, true, true, auths);
+        return new UsuarioDetails(u);
+    }
+
+    /** Rehash no login (custo do BCrypt aumentado): grava o hash novo calculado pelo provider. */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        var u = (user instanceof UsuarioDetails d
+                ? repo.findById(d.principal().id())
+                : repo.findByEmailIgnoreCase(user.getUsername()))
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
+        u.setSenhaHash(newPassword);
+        return new UsuarioDetails(u);
     }
 }
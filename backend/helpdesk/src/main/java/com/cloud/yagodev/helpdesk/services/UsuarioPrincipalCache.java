@@ -0,0 +1,100 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
+import com.cloud.yagodev.helpdesk.entities.Usuario;
+import com.cloud.yagodev.helpdesk.repositories.UsuarioRepository;
+import com.cloud.yagodev.helpdesk.services.PgNotificationBus.Invalidacao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache (id → principal/ativo) usado pelo JwtAuthenticationFilter para autenticar
+ * requisições sem ir ao banco a cada chamada. Limitado em tamanho e com TTL;
+ * o UsuarioService invalida a entrada quando o usuário muda (no modo postgres, em todos os nós).
+ */
+@Service
+public class UsuarioPrincipalCache {
+
+    public record Entrada(UsuarioPrincipal principal, boolean ativo) {}
+
+    private record Slot(Entrada entrada, long expiraEm) {}
+
+    private final UsuarioRepository repo;
+    private final PgNotificationBus bus;
+    private final Map<UUID, Slot> slots = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Counter hits, misses;
+
+    public UsuarioPrincipalCache(UsuarioRepository repo,
+                                 PgNotificationBus bus,
+                                 MeterRegistry meters,
+                                 @Value("${app.security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                                 @Value("${app.security.principal-cache.max-size:10000}") int maxSize) {
+        this.repo = repo;
+        this.bus = bus;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+        this.hits = meters.counter("helpdesk.auth.principal.cache", "result", "hit");
+        this.misses = meters.counter("helpdesk.auth.principal.cache", "result", "miss");
+        Gauge.builder("helpdesk.auth.principal.cache.size", slots, Map::size).register(meters);
+        bus.aoInvalidar(i -> {
+            if (i.tipo() == Invalidacao.Tipo.PRINCIPAL) slots.remove(i.id());
+        });
+    }
+
+    /** Retorna a entrada do usuário (ou null se não existir), indo ao banco só em miss/expiração. */
+    public Entrada get(UUID id) {
+        long now = System.currentTimeMillis();
+        Slot s = slots.get(id);
+        if (s != null && s.expiraEm() > now) {
+            hits.increment();
+            return s.entrada();
+        }
+        misses.increment();
+
+        Usuario u = repo.findById(id).orElse(null);
+        if (u == null) {
+            slots.remove(id);
+            return null;
+        }
+        var principal = new UsuarioPrincipal(u.getId(), u.getEmail(), u.getNome(), Set.copyOf(u.getRoles()));
+        var entrada = new Entrada(principal, u.isAtivo());
+        if (slots.size() >= maxSize) evict(now);
+        slots.put(id, new Slot(entrada, now + ttlMillis));
+        return entrada;
+    }
+
+    /**
+     * Remove o usuário do cache. Dentro de uma transação remove de novo após o commit,
+     * para que uma leitura concorrente não recoloque o estado antigo.
+     */
+    public void invalidate(UUID id) {
+        slots.remove(id);
+        bus.invalidar(Invalidacao.de(Invalidacao.Tipo.PRINCIPAL, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    slots.remove(id);
+                }
+            });
+        }
+    }
+
+    // remove expirados; se ainda estiver cheio, descarta tudo (recarrega sob demanda)
+    private void evict(long now) {
+        slots.values().removeIf(s -> s.expiraEm() <= now);
+        if (slots.size() >= maxSize) slots.clear();
+    }
+}
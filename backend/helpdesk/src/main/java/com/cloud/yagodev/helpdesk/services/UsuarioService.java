@@ -15,11 +15,19 @@ import java.util.*;
 public class UsuarioService {
     private final UsuarioRepository usuarioRepo;
     private final PasswordEncoder passwordEncoder;
+    private final UsuarioPrincipalCache principals;
+    private final TecnicoDirectory tecnicos;
+    private final ComentarioIndexService comentarios;
     private final SecureRandom random = new SecureRandom();
 
-    public UsuarioService(UsuarioRepository usuarioRepo, PasswordEncoder passwordEncoder) {
+    public UsuarioService(UsuarioRepository usuarioRepo, PasswordEncoder passwordEncoder,
+                          UsuarioPrincipalCache principals, TecnicoDirectory tecnicos,
+                          ComentarioIndexService comentarios) {
         this.usuarioRepo = usuarioRepo;
         this.passwordEncoder = passwordEncoder;
+        this.principals = principals;
+        this.tecnicos = tecnicos;
+        this.comentarios = comentarios;
     }
 
     // ------------- PRIMEIRO ACESSO: etapa 1 (gerar token) -------------
@@ -69,6 +77,8 @@ public class UsuarioService {
         u.setResetTokenExpires(null);
         // opcional: garantir ativo
         u.setAtivo(true);
+        principals.invalidate(u.getId());
+        tecnicos.invalidate();
 
         return new GenericMessage("Senha definida com sucesso. Você já pode fazer login.");
     }
@@ -82,6 +92,7 @@ public class UsuarioService {
         Usuario u = new Usuario(req.nome(), req.email(), hash, new HashSet<>(req.roles()));
         u.setAtivo(true);
         u = usuarioRepo.save(u);
+        tecnicos.invalidate();
         return toResponse(u);
     }
 
@@ -91,6 +102,9 @@ public class UsuarioService {
         u.setNome(req.nome());
         u.setEmail(req.email());
         u.setRoles(new HashSet<>(req.roles()));
+        principals.invalidate(id);
+        tecnicos.invalidate();
+        comentarios.autorRenomeado(id, req.nome());
         return toResponse(u);
     }
 
@@ -98,6 +112,8 @@ public class UsuarioService {
     public void deletarLogico(UUID id) {
         Usuario u = get(id);
         u.setAtivo(false);
+        principals.invalidate(id);
+        tecnicos.invalidate();
     }
 
 
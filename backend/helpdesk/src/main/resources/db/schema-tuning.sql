@@ -0,0 +1,57 @@
+-- Ajustes de schema que o ddl-auto=update não sabe criar (índices parciais etc.).
+-- Roda depois do Hibernate (spring.jpa.defer-datasource-initialization); tudo idempotente.
+
+-- Fila "sem técnico": só chamados ABERTO sem responsável entram no índice,
+-- então o custo da consulta acompanha o tamanho da fila e não o histórico.
+create index if not exists ix_chamado_fila_sem_tecnico
+    on tb_chamado (created_at, id)
+    where status = 'ABERTO' and tecnico_responsavel_id is null;
+
+-- Mesma fila na ordem de atendimento (filaSemTecnico): a expressão precisa ser idêntica ao
+-- CASE que o Hibernate gera, senão o planner volta a ler e ordenar a fila inteira.
+create index if not exists ix_chamado_fila_prioridade
+    on tb_chamado ((case prioridade when 'CRITICA' then 0 when 'ALTA' then 1 when 'MEDIA' then 2 else 3 end),
+                   created_at, id)
+    where status = 'ABERTO' and tecnico_responsavel_id is null;
+
+-- Busca de comentários: tsvector (config portuguese) gerado pelo banco + GIN
+-- restrito a comentários, que é o único tipo de evento pesquisado.
+alter table tb_chamado_evento
+    add column if not exists detalhe_tsv tsvector
+    generated always as (to_tsvector('portuguese', coalesce(detalhe, ''))) stored;
+
+create index if not exists ix_evento_comentario_tsv
+    on tb_chamado_evento using gin (detalhe_tsv)
+    where tipo = 'COMENTARIO';
+
+-- Feed de alterações (/api/chamados/changes): contador único, incrementado com
+-- "update ... returning" na transação que altera o chamado.
+create table if not exists tb_chamado_seq (
+    id    smallint primary key,
+    valor bigint not null
+);
+insert into tb_chamado_seq (id, valor) values (1, 0) on conflict (id) do nothing;
+
+-- chamados anteriores ao feed recebem números em ordem de criação
+update tb_chamado c
+   set alteracao_seq = s.valor + n.rn
+  from (select id, row_number() over (order by created_at, id) as rn
+          from tb_chamado where alteracao_seq is null) n,
+       tb_chamado_seq s
+ where c.id = n.id and s.id = 1;
+
+update tb_chamado_seq
+   set valor = greatest(valor, (select coalesce(max(alteracao_seq), 0) from tb_chamado))
+ where id = 1;
+
+-- Notificações entre nós (app.notifications.modo=postgres): payload acima do limite do
+-- NOTIFY (8000 bytes) vai para esta tabela e o NOTIFY leva só o id. Limpa a cada minuto.
+create table if not exists tb_notificacao_outbox (
+    id        bigserial primary key,
+    payload   text not null,
+    criado_em timestamptz not null default now()
+);
+
+-- Número das notificações no modo postgres: o mesmo em todos os nós, para o Last-Event-ID de
+-- uma conexão valer em qualquer nó depois de reconectar.
+create sequence if not exists seq_notificacao;
@@ -0,0 +1,50 @@
+package com.cloud.yagodev.helpdesk.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7GeneratorTest {
+
+	@Test
+	void versaoVarianteETimestamp() {
+		long antes = System.currentTimeMillis();
+		UUID id = UuidV7Generator.gerar();
+		long depois = System.currentTimeMillis();
+
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		long ms = id.getMostSignificantBits() >>> 16;
+		// outro teste pode ter adiantado o relógio lógico em alguns ms
+		assertTrue(ms >= antes && ms <= depois + 10, "timestamp fora da faixa: " + ms);
+	}
+
+	@Test
+	void ordemEstritaNoMesmoMilissegundo() {
+		long agora = System.currentTimeMillis();
+		UUID anterior = UuidV7Generator.gerar(agora);
+		// mais ids que o contador comporta num ms: força o transbordo para o ms seguinte
+		for (int i = 0; i < 10_000; i++) {
+			UUID id = UuidV7Generator.gerar(agora);
+			assertTrue(id.compareTo(anterior) > 0, "fora de ordem: " + anterior + " >= " + id);
+			assertEquals(7, id.version());
+			anterior = id;
+		}
+	}
+
+	@Test
+	void ultimosDigitosContinuamAleatorios() {
+		// o fim do id (ex.: códigos curtos pelos últimos 6 dígitos hex) não depende do tempo
+		Set<String> sufixos = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			String s = UuidV7Generator.gerar().toString();
+			sufixos.add(s.substring(s.length() - 6));
+		}
+		assertTrue(sufixos.size() > 950, "sufixos repetidos demais: " + sufixos.size());
+	}
+}
@@ -0,0 +1,65 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.ComentarioSearchResponse;
+import com.cloud.yagodev.helpdesk.services.ComentarioInvertedIndex.Comentario;
+import com.cloud.yagodev.helpdesk.services.ComentarioInvertedIndex.Escopo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ComentarioInvertedIndexTest {
+
+	private final UUID solicitante = UUID.randomUUID();
+	private final UUID tecnico = UUID.randomUUID();
+	private final UUID chamado1 = UUID.randomUUID();
+	private final UUID chamado2 = UUID.randomUUID();
+
+	private ComentarioInvertedIndex indexComDados() {
+		var ix = new ComentarioInvertedIndex();
+		ix.add(comentario(chamado1, null, "As impressoras da sala não estão imprimindo"));
+		ix.add(comentario(chamado2, tecnico, "Impressora voltou após reinício"));
+		ix.add(comentario(chamado2, tecnico, "Rede lenta no andar 3"));
+		return ix;
+	}
+
+	@Test
+	void buscaSemAcentoPluralEPrefixo() {
+		var ix = indexComDados();
+		assertEquals(List.of("Impressora voltou após reinício", "As impressoras da sala não estão imprimindo"),
+				textos(ix.buscar("IMPRESSÓRAS", Escopo.TODOS, null, 0, 10)));
+		assertEquals(List.of("Impressora voltou após reinício"),
+				textos(ix.buscar("impressora reini", Escopo.TODOS, null, 0, 10)));
+		assertEquals(0, ix.buscar("da não", Escopo.TODOS, null, 0, 10).total());
+	}
+
+	@Test
+	void escopoPorTecnicoAcompanhaAtribuicaoEExclusao() {
+		var ix = indexComDados();
+		assertEquals(1, ix.buscar("impressora", Escopo.TECNICO, tecnico, 0, 10).total());
+		assertEquals(2, ix.buscar("impressora", Escopo.SOLICITANTE, solicitante, 0, 10).total());
+
+		ix.alterarTecnico(chamado1, tecnico);
+		assertEquals(2, ix.buscar("impressora", Escopo.TECNICO, tecnico, 0, 10).total());
+
+		ix.alterarTecnico(chamado2, UUID.randomUUID());
+		assertEquals(List.of("As impressoras da sala não estão imprimindo"),
+				textos(ix.buscar("impressora", Escopo.TECNICO, tecnico, 0, 10)));
+
+		ix.removerChamado(chamado1);
+		assertEquals(0, ix.buscar("impressora", Escopo.TECNICO, tecnico, 0, 10).total());
+		assertEquals(2, ix.size());
+	}
+
+	private Comentario comentario(UUID chamado, UUID tec, String texto) {
+		return new Comentario(UUID.randomUUID(), Instant.now(), texto,
+				chamado, "Chamado", solicitante, tec, solicitante, "Usuário");
+	}
+
+	private static List<String> textos(ComentarioInvertedIndex.Resultado r) {
+		return r.content().stream().map(ComentarioSearchResponse::detalhe).toList();
+	}
+}
@@ -0,0 +1,109 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import com.cloud.yagodev.helpdesk.dtos.ComentarioSearchResponse;
+import com.cloud.yagodev.helpdesk.dtos.UsuarioPrincipal;
+import com.cloud.yagodev.helpdesk.entities.Chamado;
+import com.cloud.yagodev.helpdesk.entities.Usuario;
+import com.cloud.yagodev.helpdesk.enums.Prioridade;
+import com.cloud.yagodev.helpdesk.enums.Role;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Busca full-text contra o PostgreSQL de verdade (detalhe_tsv + websearch_to_tsquery). Perfil
+ * pgtest: só roda com HELPDESK_TEST_DB_URL apontando para um banco descartável (ver
+ * loadtest/README.md). Cada teste roda numa transação desfeita no fim; o termo é sorteado para
+ * não casar com dados já existentes.
+ */
+@SpringBootTest(properties = "app.search.comentarios.modo=fts")
+@ActiveProfiles("pgtest")
+@EnabledIfEnvironmentVariable(named = "HELPDESK_TEST_DB_URL", matches = ".+")
+@Transactional
+class ComentarioSearchServiceTest {
+
+	@Autowired ComentarioSearchService busca;
+	@Autowired EntityManager em;
+
+	private final String termo = "zq" + ThreadLocalRandom.current().ints(8, 'a', 'z' + 1)
+			.collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append);
+
+	private Usuario admin, tecnico, solicitanteA, solicitanteB;
+
+	@BeforeEach
+	void dados() {
+		admin = usuario("Admin", Role.ADMIN);
+		tecnico = usuario("Técnico", Role.TECNICO);
+		solicitanteA = usuario("Ana", Role.USUARIO_COMUM);
+		solicitanteB = usuario("Bruno", Role.USUARIO_COMUM);
+
+		var c1 = new Chamado(solicitanteA, "Impressora", "não imprime", Prioridade.MEDIA);
+		c1.atribuirTecnico(tecnico, admin);
+		c1.comentar(solicitanteA, "Apareceu " + termo + " no visor");
+		c1.comentar(tecnico, termo + " de novo: troquei o " + termo + " e o " + termo + " voltou");
+		em.persist(c1);
+
+		var c2 = new Chamado(solicitanteB, "Rede", "lenta", Prioridade.BAIXA);
+		c2.comentar(solicitanteB, "Mensagem " + termo + " ao conectar");
+		c2.comentar(solicitanteB, "Sem relação com a busca");
+		em.persist(c2);
+		em.flush();
+	}
+
+	@Test
+	void adminVeTudoOrdenadoPorRelevancia() {
+		var r = busca.buscar(principal(admin), termo, 0, 10);
+		assertEquals(3, r.totalElements());
+		// três ocorrências no mesmo comentário pesam mais que uma
+		assertEquals(termo + " de novo: troquei o " + termo + " e o " + termo + " voltou", r.content().get(0).detalhe());
+	}
+
+	@Test
+	void tecnicoVeSoChamadosSobSuaResponsabilidade() {
+		var r = busca.buscar(principal(tecnico), termo, 0, 10);
+		assertEquals(2, r.totalElements());
+		assertEquals(Set.of("Impressora"), titulos(r.content()));
+	}
+
+	@Test
+	void solicitanteVeSoOsProprios() {
+		assertEquals(Set.of("Impressora"), titulos(busca.buscar(principal(solicitanteA), termo, 0, 10).content()));
+		var b = busca.buscar(principal(solicitanteB), termo, 0, 10);
+		assertEquals(1, b.totalElements());
+		assertEquals(Set.of("Rede"), titulos(b.content()));
+	}
+
+	@Test
+	void paginaComTotal() {
+		var p1 = busca.buscar(principal(admin), termo, 0, 2);
+		var p2 = busca.buscar(principal(admin), termo, 1, 2);
+		assertEquals(2, p1.content().size());
+		assertEquals(1, p2.content().size());
+		assertEquals(2, p2.totalPages());
+	}
+
+	private Usuario usuario(String nome, Role role) {
+		var u = new Usuario(nome, termo + "-" + nome.toLowerCase() + "@teste.io", "x", Set.of(role));
+		em.persist(u);
+		return u;
+	}
+
+	private static UsuarioPrincipal principal(Usuario u) {
+		return new UsuarioPrincipal(u.getId(), u.getEmail(), u.getNome(), u.getRoles());
+	}
+
+	private static Set<String> titulos(List<ComentarioSearchResponse> content) {
+		return Set.copyOf(content.stream().map(ComentarioSearchResponse::chamadoTitulo).toList());
+	}
+}
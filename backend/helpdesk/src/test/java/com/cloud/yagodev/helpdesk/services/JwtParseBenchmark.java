@@ -0,0 +1,67 @@
+package com.cloud.yagodev.helpdesk.services;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação do mesmo access token: parser montado a cada chamada (o JwtService antigo), um
+ * JwtParser reaproveitado e o JwtService.parse atual (acerto no cache). Não roda no {@code mvn test}
+ * (surefire só pega *Test); comando no loadtest/README.md.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class JwtParseBenchmark {
+
+    private static final String SEGREDO = "0123456789abcdef0123456789abcdef0123456789";
+
+    private Key key;
+    private JwtParser parser;
+    private JwtService service;
+    private String token;
+
+    @Setup
+    public void setup() {
+        key = Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        service = new JwtService(SEGREDO, 900, 86_400, 10_000, new SimpleMeterRegistry());
+        token = service.generateAccess(UUID.randomUUID(), "bench@teste.io", List.of("ADMIN"));
+    }
+
+    @Benchmark
+    public void parserPorChamada(Blackhole bh) {
+        bh.consume(Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token));
+    }
+
+    @Benchmark
+    public void parserUnico(Blackhole bh) {
+        bh.consume(parser.parseClaimsJws(token));
+    }
+
+    @Benchmark
+    public void servicoComCache(Blackhole bh) {
+        bh.consume(service.parse(token));
+    }
+}